@@ -1,28 +1,81 @@
 package AI;
 
 import Chess.Board;
-import Chess.Position;
 import Chess.Team;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Uses the Alpha-Beta Pruning algorithm to play a move in a game of Chess.
  * This algorithm does not create deep copies for each state in the tree.
  * Instead, moves can be "undone". This is how it gets from child to parent.
+ * See {@link Searcher} for how a position is searched.
+ * <br />
+ * The search can use more than one thread (Lazy SMP). Every thread searches
+ * the same position on its own copy of the board, and they share only the
+ * transposition table. The helper threads fill the table with results that
+ * the main thread then finds instead of searching them itself; the helpers
+ * start at different depths so that they do not all search the same
+ * positions at the same time. The move of the main thread is played.
+ * <br />
+ * Each instance has its own transposition table and threads, so several
+ * games can be played at once with one instance each. The static methods
+ * use a shared default instance.
  */
-public class AlphaBetaPruning {
+public class AlphaBetaPruning extends Engine {
+
+    /**
+     * The size of the transposition table in megabytes.
+     */
+    private static final int TABLE_SIZE = 32;
+
+    private static final AlphaBetaPruning DEFAULT = new AlphaBetaPruning();
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private Searcher[] searchers;
+
+    /**
+     * Construct an AlphaBetaPruning that searches on a single thread.
+     */
+    public AlphaBetaPruning () {
+        this(1, TABLE_SIZE);
+    }
 
-    private static double maxPly;
+    /**
+     * Construct the AlphaBetaPruning.
+     * @param threads       the number of threads to search with
+     * @param tableSize     the size of the transposition table in megabytes
+     */
+    public AlphaBetaPruning (int threads, int tableSize) {
+        table = new TranspositionTable(tableSize);
+        setThreads(threads);
+    }
 
     /**
-     * When the algorithm is done, the best move is saved here and then
-     * executed at last line of code in the playMove(...) method.
+     * Set the number of threads to search with.
+     * @param threads       the number of threads, at least 1
      */
-    private static Position bestPiece, bestPosition;
+    @Override
+    public synchronized void setThreads (int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than 0.");
+        }
+
+        searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) {
+            searchers[i] = new Searcher(table, evaluationCache, stop);
+        }
+    }
 
     /**
-     * AlphaBetaAdvanced cannot be instantiated.
+     * Get the number of threads the search uses.
+     * @return              the number of threads
      */
-    private AlphaBetaPruning() {}
+    @Override
+    public synchronized int getThreads () {
+        return searchers.length;
+    }
 
     /**
      * Execute the algorithm.
@@ -31,132 +84,118 @@ public class AlphaBetaPruning {
      * @param maxPly        the maximum depth
      */
     public static void playMove (Team team, Board board, double maxPly) {
-        if (maxPly < 1) {
-            throw new IllegalArgumentException("Maximum depth must be greater than 0.");
-        }
-        AlphaBetaPruning.maxPly = maxPly;
-        alphaBetaPruning(team, board, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0);
-        board.move(bestPiece, bestPosition.getX(), bestPosition.getY());
+        DEFAULT.play(team, board, maxPly);
     }
 
     /**
-     * The meat of the algorithm.
+     * Execute the algorithm, searching deeper and deeper until a time limit.
      * @param team          the team that the AI will identify as
      * @param board         the chess board to play on
-     * @param alpha         the alpha value
-     * @param beta          the beta value
-     * @param currentPly    the current depth
-     * @return              the score of the board
+     * @param milliseconds  the time that may be spent on the move
      */
-    private static int alphaBetaPruning (Team team, Board board, double alpha, double beta, int currentPly) {
-        if (currentPly++ == maxPly || board.isGameOver()) {
-            return Scoring.score(team, board, currentPly);
-        }
-
-        if (board.getTurn() == team) {
-            return getMax(team, board, alpha, beta, currentPly);
-        } else {
-            return getMin(team, board, alpha, beta, currentPly);
-        }
+    public static void playMoveWithin (Team team, Board board, long milliseconds) {
+        DEFAULT.playWithin(team, board, milliseconds);
     }
 
     /**
-     * Play the move with the highest score.
+     * Execute the algorithm with the time that is left on a chess clock.
      * @param team          the team that the AI will identify as
      * @param board         the chess board to play on
-     * @param alpha         the alpha value
-     * @param beta          the beta value
-     * @param currentPly    the current depth
-     * @return              the score of the board
+     * @param remaining     the time left on the team's clock in milliseconds
+     * @param increment     the time added to the clock after each move in milliseconds
      */
-    private static int getMax (Team team, Board board, double alpha, double beta, int currentPly) {
-        Position pieceWithBestMove = null;
-        Position bestPosition = null;
-
-        int totalMovesMade = board.getMoveCount();
-
-        for (Position piece : board) {
-
-            if (board.get(piece).getTeam() != board.getTurn()) continue;
-
-            for (Position pos : board.get(piece).getAllPossibleMoves(piece)) {
-                board.move(piece, pos.getX(), pos.getY());
-                int score = alphaBetaPruning(team, board, alpha, beta, currentPly);
-                if (totalMovesMade != board.getMoveCount()) {
-                    board.undo();
-                }
-
-                if (score > alpha) {
-                    alpha = score;
-                    pieceWithBestMove = piece;
-                    bestPosition = pos;
-                }
-
-                if (alpha >= beta) { // Pruning.
-                    break;
-                }
-
-            }
-        }
-
-        if (bestPosition != null) {
-            AlphaBetaPruning.bestPiece = pieceWithBestMove;
-            AlphaBetaPruning.bestPosition = bestPosition;
-        }
-
-        if (totalMovesMade != board.getMoveCount()) {
-            throw new AssertionError("The number of moves made is not the expected value.\n"
-                    + "It should be " + totalMovesMade + " but it is "
-                    + board.getMoveCount() + "."
-                    + board.getMoves()
-                    + "\nBest Piece: " + pieceWithBestMove
-                    + "\nBest Position: " + bestPosition);
-        }
-
-        return (int)alpha;
+    public static void playMoveOnClock (Team team, Board board, long remaining, long increment) {
+        DEFAULT.playOnClock(team, board, remaining, increment);
     }
 
     /**
-     * Play the move with the lowest score.
-     * @param team          the player that the AI will identify as
-     * @param board         the chess board to play on
-     * @param alpha         the alpha value
-     * @param beta          the beta value
-     * @param currentPly    the current depth
-     * @return              the score of the board
+     * Set the number of threads the static playMove methods search with.
+     * @param threads       the number of threads, at least 1
      */
-    private static int getMin (Team team, Board board, double alpha, double beta, int currentPly) {
+    public static void setDefaultThreads (int threads) {
+        DEFAULT.setThreads(threads);
+    }
 
-        int totalMovesMade = board.getMoveCount();
+    /**
+     * Set the size of the evaluation cache of the static playMove methods.
+     * The positions in the old cache are forgotten.
+     * @param megabytes     the most memory the cache may use, at least 1
+     */
+    public static void setDefaultEvaluationCacheSize (int megabytes) {
+        DEFAULT.setEvaluationCacheSize(megabytes);
+    }
 
-        for (Position piece : board) {
+    /**
+     * Set the noise of the evaluation of the static playMove methods (see
+     * {@link Engine#setEvaluationNoise(boolean, long)}).
+     * @param enabled       false to score every position without noise
+     * @param seed          the seed the noise is drawn from
+     */
+    public static void setDefaultEvaluationNoise (boolean enabled, long seed) {
+        DEFAULT.setEvaluationNoise(enabled, seed);
+    }
 
-            if (board.get(piece).getTeam() != board.getTurn()) continue;
+    /**
+     * Get the number of times a position was found in the evaluation cache
+     * of the static playMove methods.
+     * @return              the number of hits since the cache was last resized
+     */
+    public static long getDefaultEvaluationCacheHits () {
+        return DEFAULT.getEvaluationCacheHits();
+    }
 
-            for (Position pos : board.get(piece).getAllPossibleMoves(piece)) {
+    /**
+     * Get the number of times a position had to be evaluated because it was
+     * not in the evaluation cache of the static playMove methods.
+     * @return              the number of misses since the cache was last resized
+     */
+    public static long getDefaultEvaluationCacheMisses () {
+        return DEFAULT.getEvaluationCacheMisses();
+    }
 
-                board.move(piece, pos.getX(), pos.getY());
-                int score = alphaBetaPruning(team, board, alpha, beta, currentPly);
-                board.undo();
+    /**
+     * Search for the best move with every thread. The helper threads search
+     * copies of the board until the main thread is done.
+     * @param board         the chess board to search
+     * @param maxDepth      the deepest search to make
+     * @param deadline      the time (from System.nanoTime()) to stop at
+     * @return              the best move, or Move.NONE if there is none
+     */
+    @Override
+    synchronized int search (Board board, int maxDepth, long deadline) {
+        table.nextSearch();
+        stop.set(false);
+
+        Thread[] helpers = new Thread[searchers.length - 1];
+
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = searchers[i + 1];
+            Board copy = new Board(board);
+            int firstDepth = 1 + (i & 1);
+
+            helpers[i] = new Thread(() -> helper.search(copy, firstDepth, Searcher.MAX_PLY, Searcher.NO_DEADLINE),
+                    "Search helper " + (i + 1));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
 
-                if (score < beta) {
-                    beta = score;
-                }
+        int move;
 
-                if (alpha >= beta) { // Pruning.
-                    break;
-                }
-            }
+        try {
+            move = searchers[0].search(board, 1, maxDepth, deadline);
+        } finally {
+            stop.set(true);
         }
 
-        if (totalMovesMade != board.getMoveCount()) {
-            throw new AssertionError("The number of moves made is not the expected value.\n"
-                    + "It should be " + totalMovesMade
-                    + " but it is " + board.getMoveCount() + "."
-                    + board.getMoves());
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
 
-        return (int)beta;
+        return move;
     }
 
 }
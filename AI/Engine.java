@@ -0,0 +1,165 @@
+package AI;
+
+import Chess.Board;
+import Chess.Move;
+import Chess.Position;
+import Chess.Team;
+
+/**
+ * The part of playing a move that does not depend on how the position is
+ * searched: checking the arguments, working out how long the search may
+ * take and playing the move it finds. {@link AlphaBetaPruning} and
+ * {@link YoungBrothersWait} only differ in how they use their threads, so
+ * they can be swapped for each other and compared on the same positions.
+ */
+public abstract class Engine {
+
+    /**
+     * When playing on a clock, the remaining time is shared out as if this
+     * many moves were left, and this much time is always kept back.
+     */
+    private static final int MOVES_TO_GO = 30;
+    private static final long SAFETY_MARGIN = 50;
+
+    /**
+     * The default size of the evaluation cache in megabytes.
+     */
+    private static final int EVALUATION_CACHE_SIZE = 8;
+
+    /**
+     * The scores of the positions this engine has evaluated, shared by all
+     * of its threads. Like the transposition table, each engine has its own.
+     * <br />
+     * The search of each engine is synchronized on the engine, as are the
+     * methods that change its settings, so a setting is never changed under
+     * a search that is running; the change waits for the search to finish.
+     */
+    final EvaluationCache evaluationCache = new EvaluationCache(EVALUATION_CACHE_SIZE);
+
+    /**
+     * Set the number of threads to search with.
+     * @param threads       the number of threads, at least 1
+     */
+    public abstract void setThreads (int threads);
+
+    /**
+     * Get the number of threads the search uses.
+     * @return              the number of threads
+     */
+    public abstract int getThreads ();
+
+    /**
+     * Set the size of the cache of evaluated positions. The positions in the
+     * old cache are forgotten. If the engine is searching, this waits until
+     * it is done.
+     * @param megabytes     the most memory the cache may use, at least 1
+     */
+    public synchronized void setEvaluationCacheSize (int megabytes) {
+        evaluationCache.resize(megabytes);
+    }
+
+    /**
+     * Set the noise that is added to the score of each position so that the
+     * engine does not always play the same game. The same position always
+     * gets the same noise for a given seed, so with the same seed (or with
+     * the noise turned off) a search on one thread can be repeated exactly.
+     * Until this is called, the noise is on and its seed comes from the clock
+     * when the engine was made, so searches differ from one run to the next.
+     * If the engine is searching, this waits until it is done.
+     * @param enabled       false to score every position without noise
+     * @param seed          the seed the noise is drawn from
+     */
+    public synchronized void setEvaluationNoise (boolean enabled, long seed) {
+        evaluationCache.setNoise(enabled, seed);
+    }
+
+    /**
+     * Get the number of times a position was found in the evaluation cache.
+     * @return              the number of hits since the cache was last resized
+     */
+    public long getEvaluationCacheHits () {
+        return evaluationCache.getHits();
+    }
+
+    /**
+     * Get the number of times a position had to be evaluated because it was
+     * not in the evaluation cache.
+     * @return              the number of misses since the cache was last resized
+     */
+    public long getEvaluationCacheMisses () {
+        return evaluationCache.getMisses();
+    }
+
+    /**
+     * Play the best move found by searching to a particular depth.
+     * @param team          the team that the AI will identify as
+     * @param board         the chess board to play on
+     * @param maxPly        the maximum depth
+     */
+    public void play (Team team, Board board, double maxPly) {
+        if (maxPly < 1) {
+            throw new IllegalArgumentException("Maximum depth must be greater than 0.");
+        }
+        play(team, board, Math.min((int)maxPly, Searcher.MAX_PLY), Searcher.NO_DEADLINE);
+    }
+
+    /**
+     * Play the best move found by searching deeper and deeper until a time limit.
+     * @param team          the team that the AI will identify as
+     * @param board         the chess board to play on
+     * @param milliseconds  the time that may be spent on the move
+     */
+    public void playWithin (Team team, Board board, long milliseconds) {
+        if (milliseconds < 1) {
+            throw new IllegalArgumentException("Time limit must be greater than 0.");
+        }
+        play(team, board, Searcher.MAX_PLY, System.nanoTime() + milliseconds * 1_000_000);
+    }
+
+    /**
+     * Play the best move found with the time that is left on a chess clock.
+     * @param team          the team that the AI will identify as
+     * @param board         the chess board to play on
+     * @param remaining     the time left on the team's clock in milliseconds
+     * @param increment     the time added to the clock after each move in milliseconds
+     */
+    public void playOnClock (Team team, Board board, long remaining, long increment) {
+        long budget = remaining / MOVES_TO_GO + increment * 3 / 4;
+        budget = Math.min(budget, remaining - SAFETY_MARGIN);
+        playWithin(team, board, Math.max(budget, 1));
+    }
+
+    /**
+     * Search for the best move and play it.
+     * @param team          the team that the AI will identify as
+     * @param board         the chess board to play on
+     * @param maxDepth      the deepest search to make
+     * @param deadline      the time (from System.nanoTime()) to stop at
+     */
+    private void play (Team team, Board board, int maxDepth, long deadline) {
+        if (board.getTurn() != team) {
+            throw new IllegalArgumentException("It is not the turn of " + team + ".");
+        }
+
+        int move = search(board, maxDepth, deadline);
+
+        if (move != Move.NONE) {
+            Position piece = Position.fromSquare(Move.getFrom(move));
+            Position destination = Position.fromSquare(Move.getTo(move));
+            board.move(piece, destination.getX(), destination.getY());
+        }
+    }
+
+    /**
+     * Search for the best move, deeper and deeper until the deepest search is
+     * done or the time is up (see {@link Searcher#search}). The board is left
+     * as it was. Implementations are synchronized on the engine, so that its
+     * settings cannot change while it searches.
+     * @param board         the chess board to search
+     * @param maxDepth      the deepest search to make
+     * @param deadline      the time (from System.nanoTime()) to stop at
+     * @return              the best move, or Move.NONE if there is none
+     */
+    abstract int search (Board board, int maxDepth, long deadline);
+
+}
@@ -0,0 +1,155 @@
+package AI;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the scores of positions that were already evaluated, so that
+ * a position reached again through a different order of moves does not
+ * have to be scored again.
+ * <br />
+ * Each position has a single slot, picked by the low bits of its Zobrist
+ * hash, and a new score always replaces the old one. Like the transposition
+ * table, the cache is shared by every thread without locks: the key is
+ * stored XOR the score, so a slot that two threads write at once (or a key
+ * that is read half old and half new) is simply not found, rather than
+ * giving the score of another position.
+ * <br />
+ * Each engine has a cache of its own, like its transposition table, so
+ * that engines do not change each other's scores. It is shared by the
+ * threads of the engine.
+ * <br />
+ * The cached scores include the noise of the evaluation (see
+ * {@link Scoring}), so the cache also holds the setting of the noise its
+ * scores were made with, and is cleared whenever that setting changes.
+ * The default seed is taken from the clock, so that each engine plays
+ * different games; its searches can only be repeated exactly once the
+ * seed is set with setNoise(...), or the noise is turned off.
+ * <br />
+ * The hits and misses are counted to see how well the cache does. Each
+ * thread counts in a cell of its own, which are only added up when the
+ * counts are asked for.
+ */
+class EvaluationCache {
+
+    /**
+     * Returned by probe(...) when the position is not in the cache.
+     */
+    static final int MISSING = Integer.MIN_VALUE;
+
+    private long[] keys;
+    private int[] scores;
+    private int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private boolean noise = true;
+    private long noiseSeed = System.nanoTime();
+
+    /**
+     * Construct the EvaluationCache.
+     * @param megabytes     the most memory the cache may use, rounded down
+     *                      to a power-of-two number of entries
+     */
+    EvaluationCache (int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Change the size of the cache. The scores in the old cache are forgotten
+     * and the counts are reset. Must not be called during a search.
+     * @param megabytes     the most memory the cache may use, rounded down
+     *                      to a power-of-two number of entries
+     */
+    void resize (int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Evaluation cache size must be at least 1 MB.");
+        }
+
+        long size = Long.highestOneBit((long)megabytes * 1024 * 1024 / (Long.BYTES + Integer.BYTES));
+        size = Math.min(size, 1 << 30);
+
+        keys = new long[(int)size];
+        scores = new int[(int)size];
+        mask = (int)size - 1;
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Turn the noise added to each score on or off, and set the seed it is
+     * drawn from. The scores in the cache were made with the old noise, so
+     * they are forgotten. Must not be called during a search.
+     * @param enabled   false to score every position without noise
+     * @param seed      the seed of the noise
+     */
+    void setNoise (boolean enabled, long seed) {
+        noise = enabled;
+        noiseSeed = seed;
+        clear();
+    }
+
+    boolean hasNoise () {
+        return noise;
+    }
+
+    long getNoiseSeed () {
+        return noiseSeed;
+    }
+
+    /**
+     * Look up the score of a position.
+     * @param hash      the Zobrist hash of the position
+     * @return          the score, or MISSING if it is not in the cache
+     */
+    int probe (long hash) {
+        int slot = (int)hash & mask;
+        int score = scores[slot];
+
+        if ((keys[slot] ^ score) == hash) {
+            hits.increment();
+            return score;
+        }
+
+        misses.increment();
+        return MISSING;
+    }
+
+    /**
+     * Save the score of a position.
+     * @param hash      the Zobrist hash of the position
+     * @param score     the score of the position
+     */
+    void store (long hash, int score) {
+        int slot = (int)hash & mask;
+        scores[slot] = score;
+        keys[slot] = hash ^ score;
+    }
+
+    /**
+     * Get the number of positions that were found in the cache.
+     * @return          the number of hits
+     */
+    long getHits () {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of positions that were not found in the cache.
+     * @return          the number of misses
+     */
+    long getMisses () {
+        return misses.sum();
+    }
+
+    /**
+     * Empty the cache and reset the counts.
+     */
+    void clear () {
+        Arrays.fill(keys, 0);
+        Arrays.fill(scores, 0);
+        hits.reset();
+        misses.reset();
+    }
+
+}
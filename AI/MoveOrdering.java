@@ -0,0 +1,209 @@
+package AI;
+
+import Chess.Board;
+import Chess.Move;
+
+/**
+ * Puts the moves of a position in the order they should be searched in.
+ * Alpha-beta pruning cuts off the most when the best move is tried first,
+ * so the moves that are most likely to be good are given the highest scores:
+ * <ol>
+ *     <li>the best move from the transposition table</li>
+ *     <li>captures and promotions, the most valuable victim first and
+ *     among those the least valuable attacker first (MVV-LVA)</li>
+ *     <li>the two killer moves of the ply, quiet moves that caused a
+ *     cutoff in another position at the same depth</li>
+ *     <li>the other quiet moves, by how often moving from one square to
+ *     another caused a cutoff (the history heuristic)</li>
+ *     <li>captures that lose material once the exchange on the square is
+ *     played out (see {@link StaticExchange})</li>
+ * </ol>
+ * The moves are not sorted up front. Instead, the best remaining move is
+ * picked each time, since a cutoff often comes after only a few moves.
+ */
+class MoveOrdering {
+
+    private static final int HASH_MOVE  = 1 << 30;
+    private static final int CAPTURE    = 1 << 29;
+    private static final int KILLER     = 1 << 28;
+    private static final int BAD_CAPTURE = -(1 << 28);
+
+    /**
+     * When a history score gets this high, every history score is halved so
+     * that they stay below the killer moves and recent cutoffs count more.
+     */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private int[][] scores;
+    private int[][] killers;
+    private int[][] history = new int[64][64];
+    private StaticExchange exchange = new StaticExchange();
+
+    /**
+     * Construct the MoveOrdering.
+     * @param maxPly    the deepest ply that will be searched
+     */
+    MoveOrdering (int maxPly) {
+        scores = new int[maxPly + 1][Board.MAX_MOVES];
+        killers = new int[maxPly + 1][2];
+    }
+
+    /**
+     * Get ready for a new search. The killer moves belong to the positions
+     * of the last search, so they are forgotten, while the history is only
+     * weakened.
+     */
+    void nextSearch () {
+        for (int[] killer : killers) {
+            killer[0] = Move.NONE;
+            killer[1] = Move.NONE;
+        }
+        ageHistory();
+    }
+
+    /**
+     * Score the moves of a position.
+     * @param board     the chess board, in the position
+     * @param moves     the moves of the position
+     * @param count     the number of moves
+     * @param ply       the ply of the position
+     * @param hashMove  the best move from the transposition table, or Move.NONE
+     */
+    void score (Board board, int[] moves, int count, int ply, int hashMove) {
+        int[] scores = this.scores[ply];
+        int[] killers = this.killers[ply];
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                int base = exchange.isLosing(board, move) ? BAD_CAPTURE : CAPTURE;
+                scores[i] = base + victimValue(move) * 8 - Move.getPiece(move).ordinal();
+            } else if (move == killers[0]) {
+                scores[i] = KILLER + 1;
+            } else if (move == killers[1]) {
+                scores[i] = KILLER;
+            } else {
+                scores[i] = history[Move.getFrom(move)][Move.getTo(move)];
+            }
+        }
+    }
+
+    /**
+     * Swap the best of the moves that were not searched yet into place.
+     * @param moves     the moves of the position, scored by score(...)
+     * @param count     the number of moves
+     * @param index     the index of the next move to search
+     * @param ply       the ply of the position
+     * @return          the move to search next
+     */
+    int next (int[] moves, int count, int index, int ply) {
+        int[] scores = this.scores[ply];
+        int best = index;
+
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+
+        return move;
+    }
+
+    /**
+     * Put the moves that were not picked yet in order all at once, for when
+     * they are handed out together instead of picked one at a time.
+     * @param moves     the scored moves of the position
+     * @param count     the number of moves
+     * @param index     the index of the first move that was not picked yet
+     * @param ply       the ply of the position
+     */
+    void sortRest (int[] moves, int count, int index, int ply) {
+        for (int i = index; i < count; i++) {
+            next(moves, count, i, ply);
+        }
+    }
+
+    /**
+     * Check to see if the move picked at an index by next(...) is a capture
+     * that loses material. The losing captures come last, so every move
+     * after it is one as well.
+     * @param index     the index of the move
+     * @param ply       the ply of the position
+     * @return          true if the move is a losing capture
+     */
+    boolean isLosingCapture (int index, int ply) {
+        return scores[ply][index] < 0;
+    }
+
+    /**
+     * Remember a move that caused a cutoff. Captures and promotions are
+     * already searched early, so only quiet moves are remembered.
+     * @param move      the move that caused the cutoff
+     * @param depth     the depth left to search when the cutoff happened
+     * @param ply       the ply of the position
+     */
+    void cutoff (int move, int depth, int ply) {
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            return;
+        }
+
+        int[] killers = this.killers[ply];
+
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+
+        int[] fromHistory = history[Move.getFrom(move)];
+        int to = Move.getTo(move);
+        fromHistory[to] += depth * depth;
+
+        if (fromHistory[to] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Check to see if a move is one of the killer moves of a ply.
+     * @param move      the move
+     * @param ply       the ply of the position
+     * @return          true if the move is a killer move
+     */
+    boolean isKiller (int move, int ply) {
+        return killers[ply][0] == move || killers[ply][1] == move;
+    }
+
+    /**
+     * Get a number that grows with the value of what a move gains: the piece
+     * it eats, plus a Queen for a promotion.
+     * @param move      the capture or promotion
+     * @return          the value of the victim, by piece type
+     */
+    private static int victimValue (int move) {
+        int value = Move.isCapture(move) ? Move.getCaptured(move).ordinal() + 1 : 0;
+        return Move.isPromotion(move) ? value + 5 : value;
+    }
+
+    /**
+     * Halve every history score.
+     */
+    private void ageHistory () {
+        for (int[] fromHistory : history) {
+            for (int to = 0; to < 64; to++) {
+                fromHistory[to] >>= 1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+package AI;
+
+import Chess.Board;
+import Chess.Pieces.Attacks;
+import Chess.Pieces.PieceType;
+import Chess.Team;
+
+/**
+ * Scores the Pawns of both teams:
+ * <ul>
+ *     <li>doubled Pawns, which stand in each other's way on one column</li>
+ *     <li>isolated Pawns, with no Pawn of their team on the columns next
+ *     to them to defend them</li>
+ *     <li>backward Pawns, which cannot move forward without being eaten
+ *     by a Pawn and have no Pawn of their team level or behind them on
+ *     the columns next to them to help</li>
+ *     <li>passed Pawns, with no enemy Pawn in front of them on their own
+ *     column or the columns next to them, which grow in value as they
+ *     get closer to being promoted</li>
+ *     <li>the Pawns sheltering each King (the Pawn shield)</li>
+ * </ul>
+ * Pawns move rarely, so most positions in a search share their Pawns with
+ * many others. The scores that only depend on the Pawns are kept in a
+ * table keyed by the Pawn hash of the board (see {@link Board#getPawnHash()}).
+ * The Pawn shield also depends on where the King is, so it is worked out
+ * every time, which only takes a few bitboard operations.
+ * <br />
+ * Like the transposition table, the table is shared by every thread without
+ * locks: the key is stored XOR the score, so a slot that two threads write
+ * at once is simply not found.
+ * <br />
+ * Scores are from White's side of the board, with a middle game part and an
+ * end game part packed into one long (see pack(...)) so that they can be
+ * blended by the game phase along with the piece-square scores.
+ */
+class PawnStructure {
+
+    private static final int DOUBLED_MIDDLE_GAME    = -10;
+    private static final int DOUBLED_END_GAME       = -20;
+    private static final int ISOLATED_MIDDLE_GAME   = -10;
+    private static final int ISOLATED_END_GAME      = -15;
+    private static final int BACKWARD_MIDDLE_GAME   =  -8;
+    private static final int BACKWARD_END_GAME      = -10;
+    private static final int SHIELD_MIDDLE_GAME     =  10;
+
+    /**
+     * The bonus of a passed Pawn, by its row counted from its own side of
+     * the board (a Pawn starts on row 1 and is promoted on row 7).
+     */
+    private static final int[] PASSED_MIDDLE_GAME   = { 0,  5, 10, 15, 25,  40,  60, 0 };
+    private static final int[] PASSED_END_GAME      = { 0, 10, 20, 35, 60, 100, 150, 0 };
+
+    private static final long[] COLUMNS = new long[8];
+    private static final long[] NEIGHBOUR_COLUMNS = new long[8];
+
+    /**
+     * Bitboards by team ordinal and square: the squares in front of a Pawn
+     * on its own and the neighbouring columns, the squares level with or
+     * behind it on the neighbouring columns, and the squares of the shield
+     * of a King.
+     */
+    private static final long[][] PASSED = new long[2][64];
+    private static final long[][] SUPPORT = new long[2][64];
+    private static final long[][] SHIELD = new long[2][64];
+
+    static {
+        for (int x = 0; x < 8; x++) {
+            COLUMNS[x] = 0x0101010101010101L << x;
+        }
+
+        for (int x = 0; x < 8; x++) {
+            NEIGHBOUR_COLUMNS[x] = (x > 0 ? COLUMNS[x - 1] : 0) | (x < 7 ? COLUMNS[x + 1] : 0);
+        }
+
+        for (Team team : Team.values()) {
+            for (int square = 0; square < 64; square++) {
+                int x = square & 7;
+                int y = square >> 3;
+                long around = COLUMNS[x] | NEIGHBOUR_COLUMNS[x];
+
+                for (int row = 0; row < 8; row++) {
+                    long rowBits = 0xFFL << (row * 8);
+                    int ahead = (team == Team.WHITE) ? y - row : row - y;
+
+                    if (ahead > 0) {
+                        PASSED[team.ordinal()][square] |= rowBits & around;
+                    } else {
+                        SUPPORT[team.ordinal()][square] |= rowBits & NEIGHBOUR_COLUMNS[x];
+                    }
+
+                    if (ahead == 1 || ahead == 2) {
+                        SHIELD[team.ordinal()][square] |= rowBits & around;
+                    }
+                }
+            }
+        }
+    }
+
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    /**
+     * Construct the PawnStructure.
+     * @param entries   the number of entries of the table, a power of two
+     */
+    PawnStructure (int entries) {
+        keys = new long[entries];
+        scores = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * Score the Pawns of the board, and the Pawns around each King.
+     * @param board     the chess board
+     * @return          the packed score, from White's side of the board
+     */
+    long score (Board board) {
+        long hash = board.getPawnHash();
+        int slot = (int)hash & mask;
+        long score = scores[slot];
+
+        if ((keys[slot] ^ score) != hash) {
+            score = scorePawns(board.getBitboard(Team.WHITE, PieceType.PAWN),
+                    board.getBitboard(Team.BLACK, PieceType.PAWN));
+            scores[slot] = score;
+            keys[slot] = hash ^ score;
+        }
+
+        return score + pack(shield(board, Team.WHITE) - shield(board, Team.BLACK), 0);
+    }
+
+    /**
+     * Score the Pawns of both teams.
+     * @param white     the bitboard of the White Pawns
+     * @param black     the bitboard of the Black Pawns
+     * @return          the packed score, from White's side of the board
+     */
+    private static long scorePawns (long white, long black) {
+        return scorePawns(Team.WHITE, white, black) - scorePawns(Team.BLACK, black, white);
+    }
+
+    /**
+     * Score the Pawns of one team.
+     * @param team      the team of the Pawns
+     * @param pawns     the bitboard of the Pawns of the team
+     * @param enemies   the bitboard of the Pawns of the other team
+     * @return          the packed score, for the team
+     */
+    private static long scorePawns (Team team, long pawns, long enemies) {
+        int middleGame = 0;
+        int endGame = 0;
+
+        for (int x = 0; x < 8; x++) {
+            int count = Long.bitCount(pawns & COLUMNS[x]);
+
+            if (count > 1) {
+                middleGame += (count - 1) * DOUBLED_MIDDLE_GAME;
+                endGame += (count - 1) * DOUBLED_END_GAME;
+            }
+        }
+
+        for (long left = pawns; left != 0; left &= left - 1) {
+            int square = Long.numberOfTrailingZeros(left);
+            int x = square & 7;
+
+            if ((pawns & NEIGHBOUR_COLUMNS[x]) == 0) {
+                middleGame += ISOLATED_MIDDLE_GAME;
+                endGame += ISOLATED_END_GAME;
+            } else if (isBackward(team, square, pawns, enemies)) {
+                middleGame += BACKWARD_MIDDLE_GAME;
+                endGame += BACKWARD_END_GAME;
+            }
+
+            if ((PASSED[team.ordinal()][square] & enemies) == 0) {
+                int row = (team == Team.WHITE) ? 7 - (square >> 3) : (square >> 3);
+                middleGame += PASSED_MIDDLE_GAME[row];
+                endGame += PASSED_END_GAME[row];
+            }
+        }
+
+        return pack(middleGame, endGame);
+    }
+
+    /**
+     * Check to see if a Pawn is backward: the square in front of it is
+     * attacked by an enemy Pawn, and no Pawn of its team on the columns next
+     * to it is level with or behind it to help it forward.
+     * @param team      the team of the Pawn
+     * @param square    the square of the Pawn
+     * @param pawns     the bitboard of the Pawns of the team
+     * @param enemies   the bitboard of the Pawns of the other team
+     * @return          true if the Pawn is backward
+     */
+    private static boolean isBackward (Team team, int square, long pawns, long enemies) {
+        int stop = (team == Team.WHITE) ? square - 8 : square + 8;
+
+        if (stop < 0 || stop >= 64 || (SUPPORT[team.ordinal()][square] & pawns) != 0) {
+            return false;
+        }
+
+        return (Attacks.pawn(team, stop) & enemies) != 0;
+    }
+
+    /**
+     * Score the Pawns standing in front of the King of a team.
+     * @param board     the chess board
+     * @param team      the team of the King
+     * @return          the middle game score of the shield
+     */
+    private static int shield (Board board, Team team) {
+        long king = board.getBitboard(team, PieceType.KING);
+
+        if (king == 0) {
+            return 0;
+        }
+
+        long shield = SHIELD[team.ordinal()][Long.numberOfTrailingZeros(king)];
+        return Long.bitCount(shield & board.getBitboard(team, PieceType.PAWN)) * SHIELD_MIDDLE_GAME;
+    }
+
+    /**
+     * Pack a middle game and an end game score into a long. Packed scores can
+     * be added and subtracted as they are, as long as neither part overflows.
+     * @param middleGame    the middle game score
+     * @param endGame       the end game score
+     * @return              the packed score
+     */
+    static long pack (int middleGame, int endGame) {
+        return ((long)endGame << 32) + middleGame;
+    }
+
+    static int getMiddleGame (long score) {
+        return (int)score;
+    }
+
+    static int getEndGame (long score) {
+        return (int)((score + 0x80000000L) >> 32);
+    }
+
+}
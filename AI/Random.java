@@ -1,7 +1,9 @@
 package AI;
 
 import Chess.Board;
+import Chess.Pieces.PieceType;
 import Chess.Position;
+import Chess.Team;
 
 import java.util.ArrayList;
 
@@ -43,9 +45,11 @@ public class Random {
     private static ArrayList<Position> getPieces (Board board) {
         ArrayList<Position> pieces = new ArrayList<>();
 
-        for (Position p : board) {
-            if (board.get(p).getTeam().equals(board.getTurn())) {
-                pieces.add(p);
+        Team team = board.getTurn();
+
+        for (PieceType type : PieceType.TYPES) {
+            for (int i = 0; i < board.getPieceCount(team, type); i++) {
+                pieces.add(Position.fromSquare(board.getPieceSquare(team, type, i)));
             }
         }
 
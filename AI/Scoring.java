@@ -1,213 +1,150 @@
 package AI;
 
 import Chess.Board;
+import Chess.PieceSquareTables;
 import Chess.Pieces.*;
-import Chess.Position;
 import Chess.Team;
 
 class Scoring {
 
-    private static final int PAWN_VALUE     =    100;
-    private static final int KNIGHT_VALUE   =    320;
-    private static final int BISHOP_VALUE   =    330;
-    private static final int ROOK_VALUE     =    500;
-    private static final int QUEEN_VALUE    =    900;
-    private static final int KING_VALUE     = 20_000;
-
-    private static int[][] PawnTable = new int[][] {
-        {  0,  0,  0,  0,  0,  0,  0,  0 },
-        { 50, 50, 50, 50, 50, 50, 50, 50 },
-        { 10, 10, 20, 30, 30, 20, 10, 10 },
-        {  5,  5, 10, 25, 25, 10,  5,  5 },
-        {  0,  0,  0, 20, 20,  0,  0,  0 },
-        {  5, -5,-10,  0,  0,-10, -5,  5 },
-        {  5, 10, 10,-20,-20, 10, 10,  5 },
-        {  0,  0,  0,  0,  0,  0,  0,  0 }
-    };
-
-    private static int[][] KnightTable = new int[][] {
-        { -50,-40,-30,-30,-30,-30,-40,-50 },
-        { -40,-20,  0,  0,  0,  0,-20,-40 },
-        { -30,  0, 10, 15, 15, 10,  0,-30 },
-        { -30,  5, 15, 20, 20, 15,  5,-30 },
-        { -30,  0, 15, 20, 20, 15,  0,-30 },
-        { -30,  5, 10, 15, 15, 10,  5,-30 },
-        { -40,-20,  0,  5,  5,  0,-20,-40 },
-        { -50,-40,-30,-30,-30,-30,-40,-50 }
-    };
-
-    private static int[][] BishopTable = new int[][] {
-        { -20,-10,-10,-10,-10,-10,-10,-20 },
-        { -10,  0,  0,  0,  0,  0,  0,-10 },
-        { -10,  0,  5, 10, 10,  5,  0,-10 },
-        { -10,  5,  5, 10, 10,  5,  5,-10 },
-        { -10,  0, 10, 10, 10, 10,  0,-10 },
-        { -10, 10, 10, 10, 10, 10, 10,-10 },
-        { -10,  5,  0,  0,  0,  0,  5,-10 },
-        { -20,-10,-10,-10,-10,-10,-10,-20 }
-    };
-
-    private static int[][] RookTable = new int[][] {
-        {  0,  0,  0,  0,  0,  0,  0,  0 },
-        {  5, 10, 10, 10, 10, 10, 10,  5 },
-        { -5,  0,  0,  0,  0,  0,  0, -5 },
-        { -5,  0,  0,  0,  0,  0,  0, -5 },
-        { -5,  0,  0,  0,  0,  0,  0, -5 },
-        { -5,  0,  0,  0,  0,  0,  0, -5 },
-        { -5,  0,  0,  0,  0,  0,  0, -5 },
-        {  0,  0,  0,  5,  5,  0,  0,  0 }
-    };
-
-    private static int[][] QueenTable = new int[][] {
-        { -20,-10,-10, -5, -5,-10,-10,-20 },
-        { -10,  0,  0,  0,  0,  0,  0,-10 },
-        { -10,  0,  5,  5,  5,  5,  0,-10 },
-        {  -5,  0,  5,  5,  5,  5,  0, -5 },
-        {   0,  0,  5,  5,  5,  5,  0, -5 },
-        { -10,  5,  5,  5,  5,  5,  0,-10 },
-        { -10,  0,  5,  0,  0,  0,  0,-10 },
-        { -20,-10,-10, -5, -5,-10,-10,-20 }
-    };
-
-    private static int[][] KingTableMiddleGame = new int[][] {
-        { -30,-40,-40,-50,-50,-40,-40,-30 },
-        { -30,-40,-40,-50,-50,-40,-40,-30 },
-        { -30,-40,-40,-50,-50,-40,-40,-30 },
-        { -30,-40,-40,-50,-50,-40,-40,-30 },
-        { -20,-30,-30,-40,-40,-30,-30,-20 },
-        { -10,-20,-20,-20,-20,-20,-20,-10 },
-        {  20, 20,  0,  0,  0,  0, 20, 20 },
-        {  20, 30, 10,  0,  0, 10, 30, 20 }
-    };
-
-    private static int[][] KingTableEndGame = new int[][] {
-        { -50,-40,-30,-20,-20,-30,-40,-50 },
-        { -30,-20,-10,  0,  0,-10,-20,-30 },
-        { -30,-10, 20, 30, 30, 20,-10,-30 },
-        { -30,-10, 30, 40, 40, 30,-10,-30 },
-        { -30,-10, 30, 40, 40, 30,-10,-30 },
-        { -30,-10, 20, 30, 30, 20,-10,-30 },
-        { -30,-30,  0,  0,  0,  0,-30,-30 },
-        { -50,-30,-30,-30,-30,-30,-30,-50 }
-    };
+    /**
+     * The score of a checkmate on the board. A checkmate that is some number
+     * of plies away is scored MATE minus that number, so a quicker win (or a
+     * slower loss) is preferred. It is far above any score the pieces can add
+     * up to, and unlike an infinite score it can safely be negated.
+     */
+    static final int MATE                   = 1_000_000;
 
     /**
-     * Get the intrinsic value of a piece.
-     * @param piece     the piece to evaluate
-     * @return          the score of the piece
+     * The number of entries of the Pawn table (a power of two), 256 KB.
      */
-    private static int valueOfPiece (Piece piece) {
-        if (piece instanceof Pawn)          return PAWN_VALUE;
-        else if (piece instanceof Knight)   return KNIGHT_VALUE;
-        else if (piece instanceof Bishop)   return BISHOP_VALUE;
-        else if (piece instanceof Rook)     return ROOK_VALUE;
-        else if (piece instanceof  Queen)   return QUEEN_VALUE;
-        else                                return KING_VALUE;
-    }
+    private static final int PAWN_TABLE_SIZE = 1 << 14;
 
-    private static int valueOfPosition (Board board, Position position) {
+    private static final PawnStructure pawnStructure = new PawnStructure(PAWN_TABLE_SIZE);
 
-        Piece piece = board.get(position);
+    /**
+     * The noise added to each score is at most this much either way.
+     */
+    private static final int NOISE = 8;
 
-        int x = position.getX();
-        int y = (piece.getTeam() == Team.WHITE) ? (position.getY()) : (7 - position.getY());
+    /**
+     * Get the intrinsic value of a type of piece.
+     * @param type      the type of piece to evaluate
+     * @return          the score of the piece
+     */
+    static int valueOfPiece (PieceType type) {
+        return PieceSquareTables.valueOf(type);
+    }
 
-        if (piece instanceof Pawn) {
-            return PawnTable[y][x];
-        }
-        else if (piece instanceof Knight) {
-            return KnightTable[y][x];
-        }
-        else if (piece instanceof Bishop) {
-            return BishopTable[y][x];
-        }
-        else if (piece instanceof Rook) {
-            return RookTable[y][x];
-        }
-        else if (piece instanceof  Queen) {
-            return QueenTable[y][x];
-        }
-        else if (endGame(board)) {
-            return KingTableEndGame[y][x];
-        } else {
-            return KingTableMiddleGame[y][x];
+    /**
+     * Score the pieces of the board, or look up the score if the position
+     * was already scored (see {@link EvaluationCache}). The cache holds the
+     * score from White's side of the board, so it serves both teams.
+     * @param team      the team that the AI will identify as
+     * @param board     the chess board to evaluate
+     * @param cache     the evaluation cache of the engine
+     * @return          the score of the board
+     */
+    private static int cachedScore (Team team, Board board, EvaluationCache cache) {
+        long hash = board.getHash();
+        int score = cache.probe(hash);
+
+        if (score == EvaluationCache.MISSING) {
+            score = findScore(Team.WHITE, board, cache);
+            cache.store(hash, score);
         }
 
+        return (team == Team.WHITE) ? score : -score;
     }
 
-    private static boolean endGame (Board board) {
+    /**
+     * Score the pieces of the board. The material and the piece-square
+     * scores are kept up to date by the board itself, so nothing has to be
+     * added up here.
+     * <br />
+     * Rather than switching from the middle game tables to the end game
+     * tables all at once, the two scores are blended by the game phase:
+     * all middle game with every piece on the board, all end game with only
+     * the Kings and Pawns left, and in between as the pieces come off.
+     * The Pawns are scored on top of that (see {@link PawnStructure}).
+     * @param team      the team that the AI will identify as
+     * @param board     the chess board to evaluate
+     * @param cache     the evaluation cache of the engine, for its noise
+     * @return          the score of the board
+     */
+    private static int findScore (Team team, Board board, EvaluationCache cache) {
+        Team opponent = team.getOpponent();
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
 
-        final int endGameScore = KING_VALUE + QUEEN_VALUE + ROOK_VALUE;
+        int middleGame = board.getPlacement(team, false) - board.getPlacement(opponent, false);
+        int endGame = board.getPlacement(team, true) - board.getPlacement(opponent, true);
 
-        boolean endWhite = hasQueen(Team.WHITE, board);
-        endWhite = endWhite && teamScore(Team.WHITE, board) <= endGameScore;
+        long pawns = pawnStructure.score(board);
+        int sign = (team == Team.WHITE) ? 1 : -1;
+        middleGame += sign * PawnStructure.getMiddleGame(pawns);
+        endGame += sign * PawnStructure.getEndGame(pawns);
 
-        boolean endBlack = hasQueen(Team.WHITE, board);
-        endBlack = endBlack && teamScore(Team.BLACK, board) <= endGameScore;
+        int score = board.getMaterial(team) - board.getMaterial(opponent);
+        score += (middleGame * phase + endGame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
 
-        return noQueensLeft(board) || (endWhite && endBlack);
+        return score + sign * noise(board.getHash(), cache);
     }
 
-    private static boolean hasQueen (Team team, Board board) {
-        for (Position piece : board) {
-            if (board.get(piece).getTeam() == team && board.get(piece) instanceof Queen) {
-                    return true;
-            }
+    /**
+     * Get a small amount of noise for a position, from White's side of the
+     * board, so that the AI does not always play the same game. The noise is
+     * drawn from the hash of the position and the seed rather than from a
+     * random number generator, so the same position always gets the same
+     * noise and a search can be repeated exactly with the same seed.
+     * @param hash      the Zobrist hash of the position
+     * @param cache     the evaluation cache of the engine, which holds the
+     *                  setting of its noise
+     * @return          the noise, or 0 if the noise is turned off
+     */
+    private static int noise (long hash, EvaluationCache cache) {
+        if (!cache.hasNoise()) {
+            return 0;
         }
-        return false;
-    }
 
-    private static boolean noQueensLeft (Board board) {
-        for (Position piece : board) {
-            if (board.get(piece) instanceof Queen) {
-                return false;
-            }
-        }
-        return true;
-    }
+        // The finalizer of SplitMix64, which spreads every bit of the input
+        // over all of the output.
+        long z = hash ^ cache.getNoiseSeed();
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        z ^= z >>> 33;
 
-    private static int teamScore (Team team, Board board) {
-        int score = 0;
-        for (Position piece : board) {
-            if (board.get(piece).getTeam() == team) {
-                score += valueOfPiece(board.get(piece));
-            }
-        }
-        return score;
+        return Math.floorMod(z, 2 * NOISE + 1) - NOISE;
     }
 
-
-    private static int findScore (Team team, Board board, int currentPly) {
-        int score = 0;
-
-        for (Position p : board) {
-            if (board.get(p).getTeam() == team) {
-                score += valueOfPiece(board.get(p));
-                score += valueOfPosition(board, p);
-                score -= currentPly; // Quicker win or slower loss is preferred.
-                score += new java.util.Random().nextInt(4); // Element of randomness.
-            } else {
-                score -= valueOfPiece(board.get(p));
-                score -= valueOfPosition(board, p);
-                score += currentPly; // Quicker win or slower loss is preferred.
-                score -= new java.util.Random().nextInt(4); // Element of randomness.
-            }
+    /**
+     * Score a position in which the team who's turn it is has no legal moves:
+     * a checkmate if its King is in check and a stalemate (a draw) if not.
+     * @param team      the team that the AI will identify as
+     * @param board     the chess board with no legal moves left
+     * @param ply       the number of plies from the position being searched
+     * @return          the score of the board
+     */
+    static int scoreNoMoves (Team team, Board board, int ply) {
+        if (!board.isInCheck()) {
+            return 0;
+        } else if (board.getTurn() == team) {
+            return -(MATE - ply);
+        } else {
+            return MATE - ply;
         }
-
-        return score;
     }
 
-    static int score (Team team, Board board, int currentPly) {
+    static int score (Team team, Board board, int currentPly, EvaluationCache cache) {
         Team opponent = (team == Team.BLACK) ? Team.WHITE : Team.BLACK;
 
         if (board.isGameOver() && board.getWinner() == team) {
-            return (int)Double.POSITIVE_INFINITY;
+            return MATE - currentPly;
         } else if (board.isGameOver() && board.getWinner() == opponent) {
-            return (int)Double.NEGATIVE_INFINITY;
+            return -(MATE - currentPly);
         } else if (board.isGameOver() && board.getWinner() == null) { // Draw.
             return 0;
         } else {
-            return Scoring.findScore(team, board, currentPly);
+            return Scoring.cachedScore(team, board, cache);
         }
     }
 
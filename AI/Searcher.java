@@ -0,0 +1,729 @@
+package AI;
+
+import Chess.Board;
+import Chess.Move;
+import Chess.Pieces.PieceType;
+import Chess.Team;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches a position for the best move. This is where the work of
+ * {@link AlphaBetaPruning} and {@link YoungBrothersWait} is done; each
+ * thread of a search has its own Searcher, with its own board, move lists
+ * and move ordering, while the transposition table is shared by all of them.
+ * <br />
+ * Moves are made with {@link Board#makeUnchecked(int)}, which does not look for
+ * the end of the game after every move. A position is only found to be
+ * checkmate or stalemate when no moves can be generated for it.
+ * <br />
+ * The search is written in the negamax form: every position is scored for
+ * the team who's turn it is, and the score of a move is the negated score
+ * of the position it leads to. The result of each position is saved in a
+ * transposition table, which ends the search of a position early if it was
+ * already searched deep enough, and otherwise gives the move to try first
+ * (see {@link MoveOrdering} for the order of the other moves).
+ * <br />
+ * Positions are searched by iterative deepening: to a depth of 1, then 2,
+ * and so on. Each iteration fills the transposition table with the best
+ * moves for the next one, so the deeper searches cost little more than
+ * they would on their own. When playing against the clock, the search is
+ * stopped once the time is up and the move of the last iteration that was
+ * finished is played.
+ * <br />
+ * At the end of the search, the captures are followed until the position
+ * is quiet (see quiescence(...)), so that a position is never scored in the
+ * middle of a trade.
+ * <br />
+ * Null-move pruning: before the moves of a position are searched, the
+ * turn is passed to the other team and the position is searched less
+ * deeply. If the team who's turn it is would still be doing too well even
+ * after giving up a move, a real move will do at least as well, so the
+ * position is cut off. This is not done when the team only has its King
+ * and Pawns, where having to move can be a disadvantage (zugzwang).
+ * <br />
+ * Late move reductions: with good move ordering, the quiet moves near the
+ * end of the list rarely turn out best, so they are first searched less
+ * deeply with a null window. Only a move that beats alpha anyway is
+ * searched again to the full depth.
+ * <br />
+ * Principal variation search: once the first move of a position has been
+ * searched, the others are only tested with a null window to prove that
+ * they are not better. A move that turns out better is searched again
+ * with the full window. At the root, each iteration starts with a narrow
+ * (aspiration) window around the score of the iteration before, which
+ * is widened if the score falls outside of it.
+ * <br />
+ * A checkmate is scored by how many plies away it is (see
+ * {@link Scoring#MATE}). The transposition table stores it as the distance
+ * from the position rather than from the root, since the same position can
+ * be reached at different plies. A position that cannot improve on a
+ * checkmate that was already found closer to the root is not searched.
+ */
+class Searcher {
+
+    /**
+     * A score above any score a position can have.
+     */
+    static final int INFINITY = Scoring.MATE + 1;
+
+    /**
+     * The deepest the search can go when it is only limited by time.
+     */
+    static final int MAX_PLY = 64;
+
+    /**
+     * The clock is read once every this many positions (a power of two),
+     * since reading it is slow compared to searching a position.
+     */
+    private static final int CHECK_INTERVAL = 2048;
+
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * Every score at least this high is a checkmate, since no search goes
+     * deeper than MAX_PLY.
+     */
+    static final int MATE_BOUND = Scoring.MATE - MAX_PLY;
+
+    /**
+     * A capture is not searched in the quiescence search if, even with this
+     * much on top of the piece it eats, it cannot raise the score to alpha.
+     */
+    private static final int DELTA_MARGIN = 200;
+
+    /**
+     * A null move is only tried with at least this much depth left, and the
+     * search after it is this much shallower (more when there is a lot of
+     * depth left).
+     */
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_DEEP_REDUCTION = 3;
+    private static final int NULL_MOVE_DEEP_DEPTH = 7;
+
+    /**
+     * Moves are only reduced with at least this much depth left, and never
+     * the first few moves of a position.
+     */
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FULL_DEPTH_MOVES = 3;
+
+    /**
+     * The aspiration window is used from this depth on, starting this far
+     * on either side of the last score and doubling each time it fails.
+     */
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 50;
+
+    /**
+     * The number of plies to reduce a move by, indexed by the depth left
+     * and the number of the move in the ordered list. The reduction grows
+     * with the logarithm of both.
+     */
+    private static final int[][] REDUCTIONS = new int[MAX_PLY + 1][Board.MAX_MOVES];
+
+    static {
+        for (int depth = 1; depth <= MAX_PLY; depth++) {
+            for (int number = 1; number < Board.MAX_MOVES; number++) {
+                REDUCTIONS[depth][number] = (int)(0.75 + Math.log(depth) * Math.log(number) / 2.25);
+            }
+        }
+    }
+
+    private final TranspositionTable table;
+    private final EvaluationCache evaluationCache;
+
+    /**
+     * Set when the search is over, so that every thread stops.
+     */
+    private final AtomicBoolean stop;
+
+    /**
+     * The legal moves of each ply. They are loaded into the same arrays
+     * every time, so no arrays are created while searching.
+     */
+    private final int[][] moves = new int[MAX_PLY + 1][Board.MAX_MOVES];
+
+    private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+
+    /**
+     * The best move at the root of the current iteration.
+     */
+    private int bestMove;
+
+    /**
+     * The best move of the last iteration that was searched to the end. It is
+     * read by the other threads of a split search to know when they may stop.
+     */
+    private volatile int completedMove;
+
+    /**
+     * The time (from System.nanoTime()) at which the search must stop,
+     * the number of positions searched, and whether the search was stopped.
+     */
+    private long deadline;
+    private long nodes;
+    private boolean aborted;
+
+    /**
+     * Hands out the younger brothers of the positions with enough depth left
+     * to other threads, or null to search every position on this thread.
+     */
+    private final YoungBrothersWait splitter;
+
+    /**
+     * The split point of the brother this Searcher is searching (see
+     * searchBrother(...)), or null for a search from the root.
+     */
+    private YoungBrothersWait.SplitPoint splitPoint;
+
+    /**
+     * Construct a Searcher that searches every position on its own thread.
+     * @param table             the transposition table shared by every thread
+     * @param evaluationCache   the evaluation cache shared by every thread
+     * @param stop              the flag that is set when every thread must stop
+     */
+    Searcher (TranspositionTable table, EvaluationCache evaluationCache, AtomicBoolean stop) {
+        this(table, evaluationCache, stop, null);
+    }
+
+    /**
+     * Construct the Searcher.
+     * @param table             the transposition table shared by every thread
+     * @param evaluationCache   the evaluation cache shared by every thread
+     * @param stop              the flag that is set when every thread must stop
+     * @param splitter          the search to split positions with, or null
+     */
+    Searcher (TranspositionTable table, EvaluationCache evaluationCache, AtomicBoolean stop,
+              YoungBrothersWait splitter) {
+        this.table = table;
+        this.evaluationCache = evaluationCache;
+        this.stop = stop;
+        this.splitter = splitter;
+    }
+
+    /**
+     * Search deeper and deeper until the deepest search is done, the time is
+     * up or the search is stopped. The board is left as it was.
+     * @param board         the chess board to search, which no other thread uses
+     * @param firstDepth    the depth of the first iteration
+     * @param maxDepth      the deepest search to make
+     * @param deadline      the time (from System.nanoTime()) to stop at
+     * @return              the best move of the deepest search that was finished
+     */
+    int search (Board board, int firstDepth, int maxDepth, long deadline) {
+        this.deadline = deadline;
+        this.nodes = 0;
+        this.aborted = false;
+        this.completedMove = Move.NONE;
+        this.splitPoint = null;
+        ordering.nextSearch();
+
+        int score = 0;
+
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            int window = ASPIRATION_WINDOW;
+            int alpha = -INFINITY;
+            int beta = INFINITY;
+
+            if (depth >= ASPIRATION_MIN_DEPTH) {
+                alpha = Math.max(score - window, -INFINITY);
+                beta = Math.min(score + window, INFINITY);
+            }
+
+            while (true) {
+                bestMove = Move.NONE;
+                score = alphaBetaPruning(board, alpha, beta, depth, 0, false);
+
+                if (aborted) {
+                    break;
+                } else if (score <= alpha) {
+                    alpha = Math.max(score - window, -INFINITY);
+                } else if (score >= beta) {
+                    beta = Math.min(score + window, INFINITY);
+                } else {
+                    break;
+                }
+
+                window *= 2;
+            }
+
+            if (aborted || bestMove == Move.NONE) {
+                break;
+            }
+
+            completedMove = bestMove;
+
+            // A checkmate within the depth that was searched cannot be
+            // improved on by searching deeper.
+            if (Math.abs(score) >= MATE_BOUND && Scoring.MATE - Math.abs(score) <= depth) {
+                break;
+            }
+        }
+
+        return completedMove;
+    }
+
+    /**
+     * Search one of the younger brothers that a split point handed out, the
+     * same way as if it had been searched in the position on a single thread.
+     * There is no deadline; the search stops when the stop flag is set or
+     * when the result is no longer needed.
+     * @param board         the chess board in the position of the split point,
+     *                      which no other thread uses
+     * @param point         the split point
+     * @param move          the move to search
+     * @param index         the index of the move in the ordered list
+     * @return              the score of the move, meaningless if wasAborted()
+     */
+    int searchBrother (Board board, YoungBrothersWait.SplitPoint point, int move, int index) {
+        this.splitPoint = point;
+        this.completedMove = Move.NONE;
+        this.aborted = false;
+        return searchMove(board, move, index, point.getAlpha(), point.beta, point.depth, point.ply, point.inCheck);
+    }
+
+    /**
+     * Check to see if the last search was stopped before it was finished.
+     * @return          true if the search was stopped
+     */
+    boolean wasAborted () {
+        return aborted;
+    }
+
+    /**
+     * Check to see if an iteration was searched to the end, so that there is
+     * a move to play if the search is stopped.
+     * @return          true if there is a move to play
+     */
+    boolean hasCompletedMove () {
+        return completedMove != Move.NONE;
+    }
+
+    /**
+     * Get the split point of the brother this Searcher is searching, which
+     * the positions it splits are reached from.
+     * @return          the split point, or null for a search from the root
+     */
+    YoungBrothersWait.SplitPoint getSplitPoint () {
+        return splitPoint;
+    }
+
+    /**
+     * Get the move ordering of this Searcher, for the thread it belongs to.
+     * @return          the move ordering
+     */
+    MoveOrdering getOrdering () {
+        return ordering;
+    }
+
+    /**
+     * Get the number of positions looked at by the last search.
+     * @return          the number of positions
+     */
+    long getNodes () {
+        return nodes;
+    }
+
+    /**
+     * Check to see if the search must stop, because the time is up or because
+     * another thread finished the search. This is only looked at every so
+     * often, and the time is never up before the first iteration is done so
+     * that there is always a move to play.
+     * @return          true if the search must stop
+     */
+    private boolean timeIsUp () {
+        if (!aborted && (++nodes & (CHECK_INTERVAL - 1)) == 0) {
+            if (stop.get()
+                    || (completedMove != Move.NONE && System.nanoTime() >= deadline)
+                    || (splitPoint != null && splitPoint.isUnneeded())) {
+                aborted = true;
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * The meat of the algorithm.
+     * @param board         the chess board to play on
+     * @param alpha         the score the team who's turn it is can already get
+     * @param beta          the score the other team can hold it to
+     * @param depth         the number of plies left to search
+     * @param ply           the number of plies from the root
+     * @param allowNull     false right after a null move, so that two are not made in a row
+     * @return              the score of the board for the team who's turn it is
+     */
+    private int alphaBetaPruning (Board board, int alpha, int beta, int depth, int ply, boolean allowNull) {
+        if (timeIsUp()) {
+            return 0;
+        }
+
+        if (ply > 0) {
+            if (board.isDraw()) {
+                return 0;
+            }
+
+            // Mate distance pruning: nothing here can beat checkmating on the
+            // next move, or do worse than being checkmated right now.
+            alpha = Math.max(alpha, -(Scoring.MATE - ply));
+            beta = Math.min(beta, Scoring.MATE - ply - 1);
+
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+
+        long hash = board.getHash();
+        long entry = table.probe(hash);
+        int hashMove = Move.NONE;
+
+        if (entry != TranspositionTable.NONE) {
+            hashMove = TranspositionTable.getMove(entry);
+
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (depth == 0) {
+            return quiescence(board, alpha, beta, ply);
+        }
+
+        boolean inCheck = board.isInCheck();
+
+        if (allowNull
+                && depth >= NULL_MOVE_MIN_DEPTH
+                && !inCheck
+                && hasPiecesOtherThanPawns(board, board.getTurn())) {
+
+            int reduction = (depth >= NULL_MOVE_DEEP_DEPTH) ? NULL_MOVE_DEEP_REDUCTION : NULL_MOVE_REDUCTION;
+
+            board.makeNullMove();
+            int score = -alphaBetaPruning(board, -beta, -beta + 1, depth - 1 - reduction, ply + 1, false);
+            board.unmakeNullMove();
+
+            if (aborted) {
+                return 0;
+            }
+
+            // A checkmate found after passing is not a real one, so only
+            // the bound itself is returned.
+            if (score >= beta) {
+                return beta;
+            }
+        }
+
+        int[] moves = this.moves[ply];
+        int count = board.generateMoves(moves);
+
+        if (count == 0) {
+            return Scoring.scoreNoMoves(board.getTurn(), board, ply);
+        }
+
+        ordering.score(board, moves, count, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int best = Move.NONE;
+
+        int totalMovesMade = board.getMoveCount();
+        YoungBrothersWait.SplitPoint point = null;
+
+        for (int i = 0; i < count; i++) {
+            int move;
+            int score;
+
+            // Young Brothers Wait: once the eldest brother has not caused a
+            // cutoff, the younger brothers are searched in parallel.
+            if (i == 1 && splitter != null && depth >= YoungBrothersWait.SPLIT_MIN_DEPTH) {
+                ordering.sortRest(moves, count, i, ply);
+                point = splitter.split(this, board, moves, count, alpha, beta, depth, ply, inCheck);
+            }
+
+            if (point != null) {
+                move = moves[i];
+                score = point.join(i);
+
+                if (point.wasAborted(i)) {
+                    aborted = true;
+                }
+            } else {
+                move = ordering.next(moves, count, i, ply);
+                score = searchMove(board, move, i, alpha, beta, depth, ply, inCheck);
+            }
+
+            if (aborted) {
+                if (point != null) {
+                    point.finish();
+                }
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+
+                if (point != null) {
+                    point.setAlpha(alpha);
+                }
+            }
+
+            if (alpha >= beta) { // Pruning.
+                ordering.cutoff(move, depth, ply);
+                break;
+            }
+        }
+
+        if (point != null) {
+            point.finish();
+        }
+
+        if (totalMovesMade != board.getMoveCount()) {
+            throw new AssertionError("The number of moves made is not the expected value.\n"
+                    + "It should be " + totalMovesMade + " but it is "
+                    + board.getMoveCount() + "."
+                    + board.getMoves()
+                    + "\nBest Move: " + Move.toString(best));
+        }
+
+        int bound = (bestScore >= beta) ? TranspositionTable.LOWER
+                : (bestScore > originalAlpha) ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER;
+        table.store(hash, depth, bound, toTable(bestScore, ply), best);
+
+        if (ply == 0) {
+            this.bestMove = best;
+        }
+
+        return bestScore;
+    }
+
+    /**
+     * Search one move of a position: the first move with the full window, the
+     * others with a null window and perhaps fewer plies, and then again in
+     * full if they turn out better than alpha after all.
+     * @param board         the chess board, in the position
+     * @param move          the move to search
+     * @param index         the index of the move in the ordered list
+     * @param alpha         the score the team who's turn it is can already get
+     * @param beta          the score the other team can hold it to
+     * @param depth         the number of plies left to search in the position
+     * @param ply           the number of plies from the root to the position
+     * @param inCheck       true if the team who's turn it is is in check
+     * @return              the score of the move for the team who's turn it is
+     */
+    private int searchMove (Board board, int move, int index, int alpha, int beta, int depth, int ply, boolean inCheck) {
+        board.makeUnchecked(move);
+
+        int score;
+
+        if (index == 0) {
+            score = -alphaBetaPruning(board, -beta, -alpha, depth - 1, ply + 1, true);
+        } else {
+            int reduction = reduction(board, move, depth, index, ply, inCheck);
+            score = -alphaBetaPruning(board, -alpha - 1, -alpha, depth - 1 - reduction, ply + 1, true);
+
+            if (score > alpha && reduction > 0 && !aborted) {
+                score = -alphaBetaPruning(board, -alpha - 1, -alpha, depth - 1, ply + 1, true);
+            }
+
+            if (score > alpha && score < beta && !aborted) {
+                score = -alphaBetaPruning(board, -beta, -alpha, depth - 1, ply + 1, true);
+            }
+        }
+
+        board.unmakeMove();
+        return score;
+    }
+
+    /**
+     * Turn a checkmate score that counts plies from the root into one that
+     * counts plies from the position, to be stored in the transposition table.
+     * @param score         the score of the position
+     * @param ply           the ply of the position
+     * @return              the score to store
+     */
+    static int toTable (int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Turn a checkmate score from the transposition table, which counts plies
+     * from the position, back into one that counts plies from the root.
+     * @param score         the stored score
+     * @param ply           the ply the position was reached at
+     * @return              the score of the position
+     */
+    static int fromTable (int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Get the number of plies to reduce the search of a move by. Only quiet
+     * moves late in the list are reduced: not captures, promotions, killer
+     * moves, moves out of check or moves that give check.
+     * @param board         the chess board, with the move already made
+     * @param move          the move
+     * @param depth         the depth left before the move
+     * @param index         the index of the move in the ordered list
+     * @param ply           the ply of the position before the move
+     * @param inCheck       true if the move is a way out of check
+     * @return              the reduction, which leaves at least 1 ply
+     */
+    private int reduction (Board board, int move, int depth, int index, int ply, boolean inCheck) {
+        if (depth < LMR_MIN_DEPTH
+                || index < LMR_FULL_DEPTH_MOVES
+                || inCheck
+                || Move.isCapture(move)
+                || Move.isPromotion(move)
+                || ordering.isKiller(move, ply)
+                || board.isInCheck()) {
+            return 0;
+        }
+
+        return Math.min(REDUCTIONS[depth][index + 1], depth - 2);
+    }
+
+    /**
+     * Check to see if a team has a piece other than its King and Pawns.
+     * Without one, passing the turn is not a fair test of the position.
+     * @param board         the chess board to look at
+     * @param team          the team to check
+     * @return              true if the team has a Knight, Bishop, Rook or Queen
+     */
+    private static boolean hasPiecesOtherThanPawns (Board board, Team team) {
+        return board.getPieceCount(team, PieceType.KNIGHT) > 0
+                || board.getPieceCount(team, PieceType.BISHOP) > 0
+                || board.getPieceCount(team, PieceType.ROOK) > 0
+                || board.getPieceCount(team, PieceType.QUEEN) > 0;
+    }
+
+    /**
+     * Search only the captures and promotions of a position until it is
+     * quiet, so that it is not scored in the middle of a trade.
+     * <br />
+     * The team who's turn it is does not have to capture, so the score of
+     * the position as it stands (the "stand pat") is a lower bound. A
+     * capture is skipped if even the piece it eats cannot bring the score
+     * up to alpha (delta pruning), or if it loses material once the
+     * exchange on its square is played out (see {@link StaticExchange}).
+     * When the King is in check, every move is searched instead, since
+     * standing pat is not an option.
+     * @param board         the chess board to play on
+     * @param alpha         the score the team who's turn it is can already get
+     * @param beta          the score the other team can hold it to
+     * @param ply           the number of plies from the root
+     * @return              the score of the board for the team who's turn it is
+     */
+    private int quiescence (Board board, int alpha, int beta, int ply) {
+        if (timeIsUp()) {
+            return 0;
+        }
+
+        if (ply >= MAX_PLY) {
+            return Scoring.score(board.getTurn(), board, ply, evaluationCache);
+        }
+
+        boolean inCheck = board.isInCheck();
+        int[] moves = this.moves[ply];
+        int count;
+        int bestScore;
+
+        // The position is only scored when standing pat is an option.
+        int standPat = 0;
+
+        if (inCheck) {
+            count = board.generateMoves(moves);
+
+            if (count == 0) {
+                return Scoring.scoreNoMoves(board.getTurn(), board, ply);
+            }
+
+            bestScore = -INFINITY;
+        } else {
+            standPat = Scoring.score(board.getTurn(), board, ply, evaluationCache);
+
+            if (standPat >= beta) {
+                return standPat;
+            }
+
+            alpha = Math.max(alpha, standPat);
+            count = board.generateCaptures(moves);
+            bestScore = standPat;
+        }
+
+        ordering.score(board, moves, count, ply, Move.NONE);
+
+        for (int i = 0; i < count; i++) {
+            int move = ordering.next(moves, count, i, ply);
+
+            if (!inCheck && ordering.isLosingCapture(i, ply)) {
+                break;
+            }
+
+            if (!inCheck && standPat + gain(move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+
+            board.makeUnchecked(move);
+            int score = -quiescence(board, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+            }
+
+            if (alpha >= beta) { // Pruning.
+                break;
+            }
+        }
+
+        return bestScore;
+    }
+
+    /**
+     * Get the material a move wins: the piece it eats and, for a promotion,
+     * the difference between a Queen and a Pawn.
+     * @param move      the move
+     * @return          the material gained
+     */
+    private static int gain (int move) {
+        int gain = Move.isCapture(move) ? Scoring.valueOfPiece(Move.getCaptured(move)) : 0;
+
+        if (Move.isPromotion(move)) {
+            gain += Scoring.valueOfPiece(PieceType.QUEEN) - Scoring.valueOfPiece(PieceType.PAWN);
+        }
+
+        return gain;
+    }
+}
@@ -0,0 +1,167 @@
+package AI;
+
+import Chess.Board;
+import Chess.Move;
+import Chess.Pieces.Attacks;
+import Chess.Pieces.PieceType;
+import Chess.Team;
+
+/**
+ * Works out whether a capture wins material without searching it, by
+ * playing out every capture on the square of the move (a static exchange
+ * evaluation).
+ * <br />
+ * After the move, the teams take turns eating on the same square, each
+ * with its least valuable piece that attacks it. A Bishop, Rook or Queen
+ * that was hidden behind a piece that just ate (an x-ray) joins in once
+ * the piece in front of it has left. Either team may stop eating whenever
+ * going on would lose material, so the result is worked out backwards from
+ * the last capture. Pins are not taken into account.
+ */
+class StaticExchange {
+
+    /**
+     * There are at most 32 pieces, so no more than that many captures.
+     */
+    private static final int MAX_CAPTURES = 32;
+
+    /**
+     * The material each team has gained after each capture of the exchange.
+     * It is reused for every exchange, so no arrays are created while searching.
+     */
+    private final int[] gains = new int[MAX_CAPTURES];
+
+    /**
+     * Check to see if a capture loses material. A piece that eats a piece
+     * worth at least as much cannot lose anything, so most captures are
+     * decided without playing out the exchange.
+     * @param board     the chess board, before the move
+     * @param move      the capture
+     * @return          true if the exchange on the square loses material
+     */
+    boolean isLosing (Board board, int move) {
+        if (Move.isCapture(move)
+                && Scoring.valueOfPiece(Move.getPiece(move)) <= Scoring.valueOfPiece(Move.getCaptured(move))) {
+            return false;
+        }
+
+        return evaluate(board, move) < 0;
+    }
+
+    /**
+     * Get the material a move wins or loses once every capture that follows
+     * on its square has been played out.
+     * @param board     the chess board, before the move
+     * @param move      the move, usually a capture
+     * @return          the material won, or a negative number if it is lost
+     */
+    int evaluate (Board board, int move) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Team team = board.getTurn();
+
+        long occupied = board.getOccupancy() & ~(1L << from);
+
+        if (Move.isEnPassant(move)) {
+            occupied &= ~(1L << ((team == Team.WHITE) ? to + 8 : to - 8));
+        }
+
+        int onSquare = Scoring.valueOfPiece(Move.getPiece(move));
+        gains[0] = Move.isCapture(move) ? Scoring.valueOfPiece(Move.getCaptured(move)) : 0;
+
+        if (Move.isPromotion(move)) {
+            gains[0] += promotionGain();
+            onSquare = Scoring.valueOfPiece(PieceType.QUEEN);
+        }
+
+        long attackers = attackers(board, to, occupied) & occupied;
+        Team side = team.getOpponent();
+        int depth = 0;
+
+        while (depth + 1 < MAX_CAPTURES) {
+            long ours = attackers & board.getOccupancy(side);
+
+            if (ours == 0) {
+                break;
+            }
+
+            PieceType type = leastValuable(board, side, ours);
+            long attacker = Long.lowestOneBit(ours & board.getBitboard(side, type));
+
+            // The King can only eat if nothing can eat it back.
+            if (type == PieceType.KING && (attackers & ~attacker & board.getOccupancy(side.getOpponent())) != 0) {
+                break;
+            }
+
+            depth++;
+            gains[depth] = onSquare - gains[depth - 1];
+            onSquare = Scoring.valueOfPiece(type);
+
+            if (type == PieceType.PAWN && (to < 8 || to >= 56)) {
+                gains[depth] += promotionGain();
+                onSquare = Scoring.valueOfPiece(PieceType.QUEEN);
+            }
+
+            occupied &= ~attacker;
+            attackers = attackers(board, to, occupied) & occupied;
+            side = side.getOpponent();
+        }
+
+        // Each team only makes a capture if it does not leave it worse off
+        // than not making it.
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+
+        return gains[0];
+    }
+
+    /**
+     * Get the pieces of both teams that attack a square. The pieces behind
+     * a piece that was taken out of the occupied squares are found as well.
+     * @param board     the chess board
+     * @param square    the square being fought over
+     * @param occupied  the squares that are still occupied
+     * @return          a bitboard of the attackers
+     */
+    private static long attackers (Board board, int square, long occupied) {
+        long queens = board.getBitboard(Team.WHITE, PieceType.QUEEN) | board.getBitboard(Team.BLACK, PieceType.QUEEN);
+        long rooks = board.getBitboard(Team.WHITE, PieceType.ROOK) | board.getBitboard(Team.BLACK, PieceType.ROOK);
+        long bishops = board.getBitboard(Team.WHITE, PieceType.BISHOP) | board.getBitboard(Team.BLACK, PieceType.BISHOP);
+        long knights = board.getBitboard(Team.WHITE, PieceType.KNIGHT) | board.getBitboard(Team.BLACK, PieceType.KNIGHT);
+        long kings = board.getBitboard(Team.WHITE, PieceType.KING) | board.getBitboard(Team.BLACK, PieceType.KING);
+
+        return (Attacks.pawn(Team.BLACK, square) & board.getBitboard(Team.WHITE, PieceType.PAWN))
+                | (Attacks.pawn(Team.WHITE, square) & board.getBitboard(Team.BLACK, PieceType.PAWN))
+                | (Attacks.knight(square) & knights)
+                | (Attacks.king(square) & kings)
+                | (Attacks.bishop(square, occupied) & (bishops | queens))
+                | (Attacks.rook(square, occupied) & (rooks | queens));
+    }
+
+    /**
+     * Get the type of the least valuable of a team's attackers.
+     * @param board     the chess board
+     * @param team      the team to look at
+     * @param attackers the attackers of the team, of which there is at least one
+     * @return          the type of the least valuable attacker
+     */
+    private static PieceType leastValuable (Board board, Team team, long attackers) {
+        for (PieceType type : PieceType.TYPES) {
+            if ((attackers & board.getBitboard(team, type)) != 0) {
+                return type;
+            }
+        }
+        return PieceType.KING;
+    }
+
+    /**
+     * Get the material a Pawn gains by becoming a Queen.
+     * @return          the gain of a promotion
+     */
+    private static int promotionGain () {
+        return Scoring.valueOfPiece(PieceType.QUEEN) - Scoring.valueOfPiece(PieceType.PAWN);
+    }
+
+}
@@ -0,0 +1,174 @@
+package AI;
+
+/**
+ * Remembers the results of positions that were already searched, so that a
+ * position reached through a different order of moves does not have to be
+ * searched again.
+ * <br />
+ * The table has a power-of-two number of buckets and the low bits of the
+ * Zobrist hash of a position pick its bucket. Each bucket has two slots:
+ * the first keeps the entry searched to the greatest depth, and the second
+ * takes every entry that is not deep enough for the first. An entry left
+ * over from an earlier search may always be replaced.
+ * <br />
+ * An entry is packed into a single long, next to the hash it belongs to:
+ * <pre>
+ * bits  0-22   best move (see {@link Chess.Move})
+ * bits 23-29   depth
+ * bits 30-31   bound
+ * bits 32-39   search generation
+ * bits 40-63   score
+ * </pre>
+ * The table is shared by every thread of a search without any locks. The
+ * key of a slot is stored as the hash XOR the entry, so an entry is only
+ * accepted if the key and the entry that are read belong together. When
+ * two threads write the same slot at once and a reader gets the key of
+ * one and the entry of the other, the entry is simply not found.
+ */
+class TranspositionTable {
+
+    /**
+     * The kinds of scores. The search failed high on a lower bound, failed
+     * low on an upper bound, and found the exact score in between.
+     */
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+    static final int EXACT = 3;
+
+    /**
+     * Returned by probe(...) when the position is not in the table. A stored
+     * entry always has a bound, so it can never be 0.
+     */
+    static final long NONE = 0;
+
+    private static final int SLOTS = 2;
+    private static final int BYTES_PER_BUCKET = SLOTS * 2 * Long.BYTES;
+    private static final int MAX_DEPTH = 0x7F;
+
+    private long[] keys;
+    private long[] entries;
+    private int mask;
+    private volatile int generation;
+
+    /**
+     * Construct the TranspositionTable.
+     * @param megabytes     the most memory the table may use, rounded down
+     *                      to a power-of-two number of buckets
+     */
+    TranspositionTable (int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB.");
+        }
+
+        long buckets = Long.highestOneBit((long)megabytes * 1024 * 1024 / BYTES_PER_BUCKET);
+        buckets = Math.min(buckets, (1 << 30) / SLOTS);
+
+        keys = new long[(int)buckets * SLOTS];
+        entries = new long[(int)buckets * SLOTS];
+        mask = (int)buckets - 1;
+    }
+
+    /**
+     * Look up a position.
+     * @param hash  the Zobrist hash of the position
+     * @return      the entry of the position, or NONE if it is not in the table
+     */
+    long probe (long hash) {
+        int slot = bucket(hash);
+
+        for (int i = slot; i < slot + SLOTS; i++) {
+            long entry = entries[i];
+            if (entry != NONE && (keys[i] ^ entry) == hash) {
+                return entry;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Save the result of searching a position.
+     * @param hash      the Zobrist hash of the position
+     * @param depth     the depth the position was searched to
+     * @param bound     LOWER, UPPER or EXACT
+     * @param score     the score of the position
+     * @param move      the best move found, or Move.NONE
+     */
+    void store (long hash, int depth, int bound, int score, int move) {
+        int slot = bucket(hash);
+        long deepest = entries[slot];
+
+        if (deepest != NONE
+                && getGeneration(deepest) == generation
+                && getDepth(deepest) > depth
+                && (keys[slot] ^ deepest) != hash) {
+            slot++;
+        }
+
+        long entry = pack(Math.min(depth, MAX_DEPTH), bound, score, move);
+        entries[slot] = entry;
+        keys[slot] = hash ^ entry;
+    }
+
+    /**
+     * Start a new search. The entries of earlier searches are kept for their
+     * moves and scores, but they no longer hold on to the depth-preferred slot.
+     */
+    void nextSearch () {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empty the table.
+     */
+    void clear () {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(entries, NONE);
+    }
+
+    /**
+     * Get the first slot of the bucket of a position.
+     * @param hash  the Zobrist hash of the position
+     * @return      the index of the first slot
+     */
+    private int bucket (long hash) {
+        return ((int)hash & mask) * SLOTS;
+    }
+
+    /**
+     * Pack the fields of an entry into a long.
+     * @param depth     the depth the position was searched to
+     * @param bound     LOWER, UPPER or EXACT
+     * @param score     the score of the position
+     * @param move      the best move found
+     * @return          the entry
+     */
+    private long pack (int depth, int bound, int score, int move) {
+        return (move & 0x7FFFFFL)
+                | ((long)depth << 23)
+                | ((long)bound << 30)
+                | ((long)generation << 32)
+                | ((long)score << 40);
+    }
+
+    static int getMove (long entry) {
+        return (int)(entry & 0x7FFFFF);
+    }
+
+    static int getDepth (long entry) {
+        return (int)(entry >>> 23) & MAX_DEPTH;
+    }
+
+    static int getBound (long entry) {
+        return (int)(entry >>> 30) & 3;
+    }
+
+    static int getScore (long entry) {
+        return (int)(entry >> 40);
+    }
+
+    private static int getGeneration (long entry) {
+        return (int)(entry >>> 32) & 0xFF;
+    }
+
+}
@@ -0,0 +1,360 @@
+package AI;
+
+import Chess.Board;
+import Chess.Team;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays a move with a parallel alpha-beta search that splits the tree
+ * between threads, as an alternative to the helper threads of
+ * {@link AlphaBetaPruning}. Both can be used the same way, so that they
+ * can be compared on the same positions.
+ * <br />
+ * Young Brothers Wait: the first move of a position (the eldest brother)
+ * is searched on its own first. If it does not cause a cutoff, the
+ * position is most likely one where every move has to be searched, so the
+ * other moves (the younger brothers) are handed out to the threads of a
+ * work-stealing pool together. When one of them does cause a cutoff, the
+ * brothers that are still being searched are told to stop, since their
+ * results are no longer needed.
+ * <br />
+ * The tree itself is searched by {@link Searcher}s, with all of their
+ * pruning, exactly as on a single thread; this class only decides which
+ * positions to split (those with enough depth left) and runs the younger
+ * brothers. Each brother is searched by a Searcher of its own, on a copy
+ * of the board that is only made once the brother starts. The
+ * transposition table is shared by every thread.
+ */
+public class YoungBrothersWait extends Engine {
+
+    /**
+     * The size of the transposition table in megabytes.
+     */
+    private static final int TABLE_SIZE = 32;
+
+    /**
+     * Only positions with at least this much depth left are split between
+     * threads. The rest are not worth the cost of copying the board.
+     */
+    static final int SPLIT_MIN_DEPTH = 5;
+
+    private static final YoungBrothersWait DEFAULT = new YoungBrothersWait(
+            Runtime.getRuntime().availableProcessors(), TABLE_SIZE);
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stop = new AtomicBoolean();
+
+    /**
+     * The Searcher of the root, and the Searchers of the younger brothers.
+     * A brother takes an idle Searcher when it starts and gives it back when
+     * it is done, since a thread that waits for a brother may start another
+     * one on top of the search it was in the middle of.
+     */
+    private final Searcher main;
+    private final Queue<Searcher> helpers = new ConcurrentLinkedQueue<>();
+    private final Queue<Searcher> idle = new ConcurrentLinkedQueue<>();
+
+    private ForkJoinPool pool;
+
+    /**
+     * The time (from System.nanoTime()) at which the search must stop.
+     */
+    private volatile long deadline;
+
+    /**
+     * Construct the YoungBrothersWait.
+     * @param threads       the number of threads to search with
+     * @param tableSize     the size of the transposition table in megabytes
+     */
+    public YoungBrothersWait (int threads, int tableSize) {
+        table = new TranspositionTable(tableSize);
+        main = new Searcher(table, evaluationCache, stop, this);
+        setThreads(threads);
+    }
+
+    /**
+     * Set the number of threads to search with.
+     * @param threads       the number of threads, at least 1
+     */
+    @Override
+    public synchronized void setThreads (int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than 0.");
+        }
+
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Get the number of threads the search uses.
+     * @return              the number of threads
+     */
+    @Override
+    public synchronized int getThreads () {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Execute the algorithm.
+     * @param team          the team that the AI will identify as
+     * @param board         the chess board to play on
+     * @param maxPly        the maximum depth
+     */
+    public static void playMove (Team team, Board board, double maxPly) {
+        DEFAULT.play(team, board, maxPly);
+    }
+
+    /**
+     * Execute the algorithm, searching deeper and deeper until a time limit.
+     * @param team          the team that the AI will identify as
+     * @param board         the chess board to play on
+     * @param milliseconds  the time that may be spent on the move
+     */
+    public static void playMoveWithin (Team team, Board board, long milliseconds) {
+        DEFAULT.playWithin(team, board, milliseconds);
+    }
+
+    /**
+     * Search for the best move on the threads of the pool. The board is not
+     * touched; the search is made on a copy.
+     * @param board         the chess board to search
+     * @param maxDepth      the deepest search to make
+     * @param deadline      the time (from System.nanoTime()) to stop at
+     * @return              the best move, or Move.NONE if there is none
+     */
+    @Override
+    synchronized int search (Board board, int maxDepth, long deadline) {
+        table.nextSearch();
+        stop.set(false);
+        this.deadline = deadline;
+
+        for (Searcher helper : helpers) {
+            helper.getOrdering().nextSearch();
+        }
+
+        Board copy = new Board(board);
+
+        try {
+            return pool.invoke(ForkJoinTask.adapt(() -> main.search(copy, 1, maxDepth, deadline)));
+        } finally {
+            stop.set(true);
+        }
+    }
+
+    /**
+     * Hand out the younger brothers of a position to the pool. They are
+     * forked from the last to the first, so that this thread, which works
+     * from the top of its queue, picks up the most promising ones itself
+     * while other threads steal the rest from the bottom.
+     * @param searcher      the Searcher of the position
+     * @param board         the chess board, in the position, which is left
+     *                      alone until every brother is done
+     * @param moves         the moves of the position, in order
+     * @param count         the number of moves
+     * @param alpha         the score the team who's turn it is can already get
+     * @param beta          the score the other team can hold it to
+     * @param depth         the number of plies left to search
+     * @param ply           the number of plies from the root
+     * @param inCheck       true if the team who's turn it is is in check
+     * @return              the split point, with brothers from index 1 on
+     */
+    SplitPoint split (Searcher searcher, Board board, int[] moves, int count,
+                      int alpha, int beta, int depth, int ply, boolean inCheck) {
+        SplitPoint point = new SplitPoint(searcher.getSplitPoint(), board, count, alpha, beta, depth, ply, inCheck);
+
+        for (int i = count - 1; i >= 1; i--) {
+            point.brothers[i] = new Brother(point, moves[i], i);
+            point.brothers[i].fork();
+        }
+
+        return point;
+    }
+
+    /**
+     * Check to see if the search must stop because the time is up. It is
+     * never stopped before the root has a move to play.
+     * @return              true if the search must stop
+     */
+    private boolean isStopped () {
+        if (!stop.get() && main.hasCompletedMove() && System.nanoTime() >= deadline) {
+            stop.set(true);
+        }
+        return stop.get();
+    }
+
+    /**
+     * Take a Searcher that is not in use, or make a new one.
+     * @return              the Searcher
+     */
+    private Searcher acquire () {
+        Searcher searcher = idle.poll();
+
+        if (searcher == null) {
+            searcher = new Searcher(table, evaluationCache, stop, this);
+            helpers.add(searcher);
+        }
+
+        return searcher;
+    }
+
+    /**
+     * A position whose younger brothers were handed out. Its board and
+     * window stay as they were when it was split until every brother is done.
+     */
+    final class SplitPoint {
+
+        private final SplitPoint parent;
+        private final Board board;
+        private final Brother[] brothers;
+
+        final int beta, depth, ply;
+        final boolean inCheck;
+
+        /**
+         * The best score of the position so far, raised as the brothers
+         * are joined, so that the brothers that start later get a tighter
+         * window.
+         */
+        private volatile int alpha;
+
+        /**
+         * Set once a brother caused a cutoff or the search of the position
+         * was stopped, so that the other brothers stop.
+         */
+        private volatile boolean cutoff;
+
+        /**
+         * Construct the SplitPoint.
+         * @param parent    the split point the position was reached from, or null
+         * @param board     the chess board, in the position
+         * @param count     the number of moves of the position
+         * @param alpha     the score the team who's turn it is can already get
+         * @param beta      the score the other team can hold it to
+         * @param depth     the number of plies left to search
+         * @param ply       the number of plies from the root
+         * @param inCheck   true if the team who's turn it is is in check
+         */
+        private SplitPoint (SplitPoint parent, Board board, int count,
+                            int alpha, int beta, int depth, int ply, boolean inCheck) {
+            this.parent = parent;
+            this.board = board;
+            this.brothers = new Brother[count];
+            this.alpha = alpha;
+            this.beta = beta;
+            this.depth = depth;
+            this.ply = ply;
+            this.inCheck = inCheck;
+        }
+
+        int getAlpha () {
+            return alpha;
+        }
+
+        void setAlpha (int alpha) {
+            this.alpha = alpha;
+        }
+
+        /**
+         * Wait for a brother to be searched.
+         * @param index     the index of the brother's move
+         * @return          the score of the move, meaningless if wasAborted(index)
+         */
+        int join (int index) {
+            return brothers[index].join();
+        }
+
+        /**
+         * Check to see if the search of a brother was stopped. Only call this
+         * after join(index).
+         * @param index     the index of the brother's move
+         * @return          true if the score of the brother means nothing
+         */
+        boolean wasAborted (int index) {
+            return brothers[index].aborted;
+        }
+
+        /**
+         * Stop the brothers that are still being searched, and wait for them,
+         * so that the board can be used again.
+         */
+        void finish () {
+            cutoff = true;
+
+            for (int i = 1; i < brothers.length; i++) {
+                brothers[i].join();
+            }
+        }
+
+        /**
+         * Check to see if the results of the brothers are no longer needed,
+         * because a position before them was cut off or the time is up.
+         * @return          true if the brothers should stop
+         */
+        boolean isUnneeded () {
+            for (SplitPoint point = this; point != null; point = point.parent) {
+                if (point.cutoff) {
+                    return true;
+                }
+            }
+            return isStopped();
+        }
+    }
+
+    /**
+     * The search of one younger brother, which can be run on any thread of
+     * the pool. The score is from the point of view of the team who's turn
+     * it is in the position that was split.
+     */
+    @SuppressWarnings("serial")
+    private final class Brother extends RecursiveTask<Integer> {
+
+        private final SplitPoint point;
+        private final int move, index;
+
+        /**
+         * Whether the search was stopped before it was finished, in which
+         * case its score means nothing.
+         */
+        private boolean aborted;
+
+        /**
+         * Construct the Brother.
+         * @param point     the split point
+         * @param move      the move to search
+         * @param index     the index of the move in the ordered list
+         */
+        Brother (SplitPoint point, int move, int index) {
+            this.point = point;
+            this.move = move;
+            this.index = index;
+        }
+
+        @Override
+        protected Integer compute () {
+            if (point.isUnneeded()) {
+                aborted = true;
+                return 0;
+            }
+
+            Searcher searcher = acquire();
+
+            try {
+                int score = searcher.searchBrother(new Board(point.board), point, move, index);
+                aborted = searcher.wasAborted();
+                return score;
+            } finally {
+                idle.add(searcher);
+            }
+        }
+    }
+
+}
@@ -11,7 +11,13 @@ import java.util.Iterator;
  */
 public class Board implements Iterable<Position>, Serializable {
 
-    private Piece[][] array;
+    /**
+     * The most legal moves a position can have is 218, so an array
+     * of this size can hold the moves of any position.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private Piece[] squares;
     private Team turn, winner;
     private boolean gameOver;
 
@@ -26,10 +32,54 @@ public class Board implements Iterable<Position>, Serializable {
     private WinnerHandler winnerHandler;
 
     /**
-     * Keep a reference to each king as they need to be analyzed often to
-     * determine checkmates and stalemates.
+     * Generates the legal moves of the team who's turn it is.
+     */
+    private MoveGenerator moveGenerator;
+
+    /**
+     * One bitboard per team and piece type, indexed by
+     * {@code team.ordinal() * 6 + type.ordinal()}. Bit n is set when
+     * a piece of that team and type is on square n (see {@link Position#toSquare()}).
+     */
+    private long[] bitboards;
+
+    /**
+     * The squares occupied by each team, indexed by {@code team.ordinal()}.
+     */
+    private long[] occupancy;
+
+    /**
+     * The squares of the pieces of each team and type, indexed like the
+     * bitboards. Each list is kept in ascending order of square so that
+     * making and undoing a move gives back the same order, which lets the
+     * pieces be walked by index while moves are tried.
+     */
+    private int[][] pieceSquares;
+    private int[] pieceCounts;
+
+    /**
+     * The material and the piece-square scores of each team (indexed by
+     * {@code team.ordinal()}), with the King table of the middle game and of
+     * the end game, and the game phase (see {@link PieceSquareTables}). They
+     * are updated as pieces are added and removed, like the hash.
      */
-    private Position kingWhite, kingBlack;
+    private int[] material;
+    private int[] middleGame;
+    private int[] endGame;
+    private int phase;
+
+    /**
+     * The Zobrist hash of the position. It covers the pieces, the side to
+     * move, the castling rights and the en passant column, and it is updated
+     * as pieces are added and removed rather than recomputed.
+     */
+    private long hash;
+
+    /**
+     * The Zobrist hash of the Pawns alone, which changes far less often than
+     * the hash of the whole position.
+     */
+    private long pawnHash;
 
     /**
      * Construct the Board.
@@ -38,12 +88,35 @@ public class Board implements Iterable<Position>, Serializable {
         reset();
     }
 
+    /**
+     * Construct a copy of a Board. The copy has its own pieces and its own
+     * undo stack, so moves can be made and undone on it (for example by a
+     * search on another thread) without touching the original.
+     * @param board     the board to copy
+     */
+    public Board(Board board) {
+        clear();
+
+        for (int square = 0; square < 64; square++) {
+            if (board.squares[square] != null) {
+                place(board.squares[square].clone(this), square);
+            }
+        }
+
+        turn = board.turn;
+        winner = board.winner;
+        gameOver = board.gameOver;
+        hash = board.hash;
+        movementHandler = new MovementHandler(this, board.movementHandler);
+    }
+
     /**
      * Clear the board and place the default starting pieces.
      */
     public void reset () {
         clear();
         loadPieces();
+        movementHandler.updateCastlingRights();
     }
 
     /**
@@ -53,9 +126,20 @@ public class Board implements Iterable<Position>, Serializable {
         turn = Team.WHITE;
         winner = null;
         gameOver = false;
-        array = new Piece[8][8];
+        squares = new Piece[64];
+        bitboards = new long[12];
+        occupancy = new long[2];
+        pieceSquares = new int[12][64];
+        pieceCounts = new int[12];
+        material = new int[2];
+        middleGame = new int[2];
+        endGame = new int[2];
+        phase = 0;
+        hash = 0;
+        pawnHash = 0;
         movementHandler = new MovementHandler(this);
         winnerHandler = new WinnerHandler(this);
+        moveGenerator = new MoveGenerator(this);
     }
     /**
      * Load the pieces to the board in the default chess starting arrangement.
@@ -95,8 +179,11 @@ public class Board implements Iterable<Position>, Serializable {
      * @param position  the position to add the piece to on the board
      */
     public void add (Piece piece, Position position) {
-        updateKings(piece, position);
-        array[position.getY()][position.getX()] = piece;
+        int square = position.toSquare();
+        remove(square);
+        if (piece != null) {
+            place(piece, square);
+        }
     }
 
     /**
@@ -105,7 +192,26 @@ public class Board implements Iterable<Position>, Serializable {
      * @return          the piece at the position
      */
     public Piece get (Position position) {
-        return array[position.getY()][position.getX()];
+        return squares[position.toSquare()];
+    }
+
+    /**
+     * Get the piece on a particular square.
+     * @param square    the index of the square (see {@link Position#toSquare()})
+     * @return          the piece on the square, or null if it is empty
+     */
+    public Piece get (int square) {
+        return squares[square];
+    }
+
+    /**
+     * Add a piece to a square, replacing the piece that was there.
+     * @param piece     the piece to add to the board
+     * @param square    the index of the square
+     */
+    void add (Piece piece, int square) {
+        remove(square);
+        place(piece, square);
     }
 
     /**
@@ -113,7 +219,199 @@ public class Board implements Iterable<Position>, Serializable {
      * @param position  the position of the piece to delete
      */
     void delete (Position position) {
-        array[position.getY()][position.getX()] = null;
+        remove(position.toSquare());
+    }
+
+    /**
+     * Remove a piece from a square.
+     * @param square    the index of the square
+     */
+    void delete (int square) {
+        remove(square);
+    }
+
+    /**
+     * Put a piece on an empty square and set its bits in the bitboards.
+     * @param piece     the piece to put on the square
+     * @param square    the index of the square
+     */
+    private void place (Piece piece, int square) {
+        long bit = 1L << square;
+        int index = index(piece.getTeam(), piece.getType());
+        squares[square] = piece;
+        bitboards[index] |= bit;
+        occupancy[piece.getTeam().ordinal()] |= bit;
+        hash ^= Zobrist.PIECES[index][square];
+        addScores(piece, index, square, 1);
+
+        if (piece.getType() == PieceType.PAWN) {
+            pawnHash ^= Zobrist.PIECES[index][square];
+        }
+
+        int[] list = pieceSquares[index];
+        int i = pieceCounts[index]++;
+        while (i > 0 && list[i - 1] > square) {
+            list[i] = list[i - 1];
+            i--;
+        }
+        list[i] = square;
+    }
+
+    /**
+     * Take the piece off a square (if there is one) and clear its bits
+     * in the bitboards.
+     * @param square    the index of the square
+     */
+    private void remove (int square) {
+        Piece piece = squares[square];
+
+        if (piece == null) {
+            return;
+        }
+
+        long mask = ~(1L << square);
+        int index = index(piece.getTeam(), piece.getType());
+        squares[square] = null;
+        bitboards[index] &= mask;
+        occupancy[piece.getTeam().ordinal()] &= mask;
+        hash ^= Zobrist.PIECES[index][square];
+        addScores(piece, index, square, -1);
+
+        if (piece.getType() == PieceType.PAWN) {
+            pawnHash ^= Zobrist.PIECES[index][square];
+        }
+
+        int[] list = pieceSquares[index];
+        int count = --pieceCounts[index];
+        int i = 0;
+        while (list[i] != square) {
+            i++;
+        }
+        System.arraycopy(list, i + 1, list, i, count - i);
+    }
+
+    /**
+     * Add the scores of a piece to the scores of its team, or take them away.
+     * @param piece     the piece
+     * @param index     the index of the bitboard of the piece
+     * @param square    the index of the square of the piece
+     * @param sign      1 when the piece is placed, -1 when it is removed
+     */
+    private void addScores (Piece piece, int index, int square, int sign) {
+        int team = piece.getTeam().ordinal();
+        material[team] += sign * PieceSquareTables.valueOf(piece.getType());
+        middleGame[team] += sign * PieceSquareTables.MIDDLE_GAME[index][square];
+        endGame[team] += sign * PieceSquareTables.END_GAME[index][square];
+        phase += sign * PieceSquareTables.phaseOf(piece.getType());
+    }
+
+    /**
+     * Get the index of the bitboard of a particular team and piece type.
+     * @param team      the team of the pieces
+     * @param type      the type of the pieces
+     * @return          the index into the bitboards
+     */
+    static int index (Team team, PieceType type) {
+        return team.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * Get the bitboard of all the pieces of a particular team and type.
+     * @param team      the team of the pieces
+     * @param type      the type of the pieces
+     * @return          the bitboard with a bit set on each square holding such a piece
+     */
+    public long getBitboard (Team team, PieceType type) {
+        return bitboards[index(team, type)];
+    }
+
+    /**
+     * Get the bitboard of all the squares occupied by a team.
+     * @param team      the team of the pieces
+     * @return          the bitboard of the team's pieces
+     */
+    public long getOccupancy (Team team) {
+        return occupancy[team.ordinal()];
+    }
+
+    /**
+     * Get the bitboard of all the occupied squares on the board.
+     * @return          the bitboard of all the pieces
+     */
+    public long getOccupancy () {
+        return occupancy[0] | occupancy[1];
+    }
+
+    /**
+     * Get the number of pieces of a particular team and type on the board.
+     * @param team      the team of the pieces
+     * @param type      the type of the pieces
+     * @return          the number of such pieces
+     */
+    public int getPieceCount (Team team, PieceType type) {
+        return pieceCounts[index(team, type)];
+    }
+
+    /**
+     * Get the number of pieces of a team on the board.
+     * @param team      the team of the pieces
+     * @return          the number of pieces the team has left
+     */
+    public int getPieceCount (Team team) {
+        int offset = team.ordinal() * 6;
+        int count = 0;
+        for (int i = offset; i < offset + 6; i++) {
+            count += pieceCounts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Get the total value of the pieces of a team, King included.
+     * @param team      the team of the pieces
+     * @return          the material of the team
+     */
+    public int getMaterial (Team team) {
+        return material[team.ordinal()];
+    }
+
+    /**
+     * Get the sum of the piece-square scores of a team.
+     * @param team      the team of the pieces
+     * @param endGame   true to score the King with its end game table
+     * @return          the piece-square score of the team
+     */
+    public int getPlacement (Team team, boolean endGame) {
+        return endGame ? this.endGame[team.ordinal()] : middleGame[team.ordinal()];
+    }
+
+    /**
+     * Get the game phase, from {@link PieceSquareTables#MAX_PHASE} with every
+     * piece on the board down to 0 with only Kings and Pawns left. It can go
+     * above MAX_PHASE when Pawns are promoted.
+     * @return          the game phase
+     */
+    public int getPhase () {
+        return phase;
+    }
+
+    /**
+     * Get the square of one of the pieces of a particular team and type.
+     * Together with {@link #getPieceCount(Team, PieceType)} this walks the
+     * pieces of a team without creating any objects:
+     * <pre>
+     * for (int i = 0; i &lt; board.getPieceCount(team, type); i++) {
+     *     int square = board.getPieceSquare(team, type, i);
+     * }
+     * </pre>
+     * The pieces are in ascending order of square.
+     * @param team      the team of the piece
+     * @param type      the type of the piece
+     * @param i         the index of the piece, less than the piece count
+     * @return          the index of the square of the piece
+     */
+    public int getPieceSquare (Team team, PieceType type, int i) {
+        return pieceSquares[index(team, type)][i];
     }
 
     /**
@@ -123,32 +421,103 @@ public class Board implements Iterable<Position>, Serializable {
      */
     public void move (Position p, int x, int y) {
         movementHandler.move(p, x, y);
-        updateKings(get(p), p);
         winnerHandler.checkIfGameIsOver();
     }
 
     /**
-     * Update the references to the Kings since they are checked often.
-     * This is for efficiency.
-     * @param piece     the piece to check
-     * @param position  the position of the piece
+     * Check to see if the piece on one square can legally move to another.
+     * Only this one move is looked at, so it is much cheaper than generating
+     * the moves of the piece.
+     * Squares outside of the board are not an error, since the squares may
+     * come from outside; the move is simply not legal.
+     * @param from      the index of the square of the piece
+     * @param to        the index of the destination square
+     * @return          true if both squares are on the board, the piece
+     *                  belongs to the team who's turn it is and the move
+     *                  does not leave its King in check
      */
-    void updateKings (Piece piece, Position position) {
-        if (piece instanceof King && piece.getTeam() == Team.WHITE) {
-            kingWhite = position;
-        } else if (piece instanceof King && piece.getTeam() == Team.BLACK) {
-            kingBlack = position;
+    public boolean isLegal (int from, int to) {
+        if (from < 0 || from >= 64 || to < 0 || to >= 64) {
+            return false;
         }
+        return moveGenerator.isLegal(from, to);
+    }
+
+    /**
+     * Make a move after checking that it is legal, without looking for a
+     * checkmate, stalemate or draw afterwards. Intended for moves that come
+     * from outside, such as from a client. Only the squares of the move are
+     * trusted; the rest of it is worked out again from the board.
+     * @param move  the move to make (see {@link Move})
+     * @return      true if the move was legal and was made
+     */
+    public boolean makeMove (int move) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+
+        if (!isLegal(from, to)) {
+            return false;
+        }
+
+        movementHandler.make(movementHandler.createMove(from, to));
+        return true;
     }
 
     /**
-     * Move a piece to a new position, removing the piece in the new position.
+     * Make a move without checking it and without looking for a checkmate,
+     * stalemate or draw afterwards. Intended to be used by engines searching
+     * through many positions, which find out that the game is over when
+     * there are no moves left to generate. The move must be legal, which is
+     * the case for the moves of {@link #generateMoves(int[])}.
+     * @param move  the move to make (see {@link Move})
      */
-    void move (Position location, Position destination) {
-        array[destination.getY()][destination.getX()] = array[location.getY()][location.getX()];
-        delete(location);
-        get(destination).markAsMoved();
-        toggleTurn();
+    public void makeUnchecked (int move) {
+        movementHandler.make(move);
+    }
+
+    /**
+     * Take back the last move made by {@link #makeMove(int)} or
+     * {@link #makeUnchecked(int)}. A null move must be taken back with
+     * {@link #unmakeNullMove()} instead, so an IllegalStateException is
+     * thrown if the last move was one.
+     */
+    public void unmakeMove () {
+        if (movementHandler.isNullMoveLast()) {
+            throw new IllegalStateException("The last move is a null move; use unmakeNullMove().");
+        }
+        movementHandler.undo();
+    }
+
+    /**
+     * Pass the turn to the other team without moving a piece. This is not
+     * a legal chess move; it is intended to be used by engines that prune
+     * positions where the other team could not do any harm even if it
+     * could move twice. The en passant square is cleared for the move.
+     */
+    public void makeNullMove () {
+        movementHandler.makeNull();
+    }
+
+    /**
+     * Take back the last null move made by {@link #makeNullMove()}. An
+     * IllegalStateException is thrown if the last move was not a null move,
+     * rather than taking back a real move by mistake.
+     */
+    public void unmakeNullMove () {
+        if (!movementHandler.isNullMoveLast()) {
+            throw new IllegalStateException("The last move is not a null move.");
+        }
+        movementHandler.undo();
+    }
+
+    /**
+     * Check to see if the position is drawn by repetition or by both teams
+     * being down to a single piece. Unlike {@link #isGameOver()} this looks
+     * at the position itself, so it also works after {@link #makeUnchecked(int)}.
+     * @return      true if the position is a draw
+     */
+    public boolean isDraw () {
+        return winnerHandler.isDraw();
     }
 
     /**
@@ -158,7 +527,6 @@ public class Board implements Iterable<Position>, Serializable {
         if (movementHandler.undo()) {
             gameOver = false;
             winner = null;
-            toggleTurn();
         }
     }
 
@@ -204,7 +572,7 @@ public class Board implements Iterable<Position>, Serializable {
         if (!isInBounds(position)) {
             throw new IndexOutOfBoundsException();
         }
-        return array[position.getY()][position.getX()] == null;
+        return (getOccupancy() & (1L << position.toSquare())) == 0;
     }
 
     /**
@@ -224,75 +592,74 @@ public class Board implements Iterable<Position>, Serializable {
      * @return              true if no enemies can move there
      */
     public boolean safeSpot (Team team, Position destination) {
-        boolean result = true;
-        boolean dummyUsed = false;
-        Rook dummy;
-
-        /*
-         * Put a dummy piece at the destination if there isn't already a piece there.
-         * The dummy necessary because Pawns can't move diagonally unless there is a
-         * piece there.
-         */
-        if (isEmptySpot(destination)) {
-            dummyUsed = true;
-            dummy = new Rook(this, team);
-            add(dummy, destination);
-        }
+        return !isAttacked(destination.toSquare(), team.getOpponent());
+    }
 
-        for (Position pos : this) {
-            if (!get(pos).getTeam().equals(team)) {
-                Piece.filterAgainstCheckOFF();
-                if (kingContainsMove(pos, destination)|| pieceContainsMove(pos, destination)) {
-                    result = false;
-                    break;
-                }
-                Piece.filterAgainstCheckON();
-            }
-        }
+    /**
+     * Check to see if a square is attacked by any piece of a team.
+     * @param square    the index of the square
+     * @param team      the attacking team
+     * @return          true if a piece of the team could eat on the square
+     */
+    public boolean isAttacked (int square, Team team) {
+        return getAttackers(square, team, getOccupancy()) != 0;
+    }
 
-        if (dummyUsed) {
-            delete(destination);
-        }
-        Piece.filterAgainstCheckON();
-        return result;
+    /**
+     * Get the pieces of a team that attack a square. Rather than looking at
+     * the moves of every enemy piece, each kind of attack is made from the
+     * square itself: the pieces of the right type that it reaches are the
+     * attackers.
+     * @param square    the index of the square
+     * @param team      the attacking team
+     * @param occupied  the occupied squares, which block Bishops, Rooks and Queens
+     * @return          a bitboard of the attacking pieces
+     */
+    long getAttackers (int square, Team team, long occupied) {
+        long queens = getBitboard(team, PieceType.QUEEN);
+        return (Attacks.pawn(team.getOpponent(), square) & getBitboard(team, PieceType.PAWN))
+                | (Attacks.knight(square) & getBitboard(team, PieceType.KNIGHT))
+                | (Attacks.king(square) & getBitboard(team, PieceType.KING))
+                | (Attacks.bishop(square, occupied) & (getBitboard(team, PieceType.BISHOP) | queens))
+                | (Attacks.rook(square, occupied) & (getBitboard(team, PieceType.ROOK) | queens));
     }
 
     /**
-     * Check to see if a King contains a particular move.
-     * This does not include castling.
-     * @param destination   the move to check for
-     * @return              true if the King contains the move
+     * Check to see if the King of the team who's turn it is, is in check.
+     * @return      true if the King is attacked
      */
-    private boolean kingContainsMove (Position position, Position destination) {
-        return (isKing(get(position))
-                && ((King) get(position)).getSurroundingSquares(position).contains(destination));
+    public boolean isInCheck () {
+        return moveGenerator.isInCheck();
     }
 
     /**
-     * Check to see if a piece contains a particular move.
-     * @param destination   the move to check for
-     * @return              true if the Piece contains the move
+     * Load all the legal moves of the team who's turn it is.
+     * @param moves     the array to load the moves to, at least MAX_MOVES long
+     * @return          the number of moves loaded (see {@link Move})
      */
-    private boolean pieceContainsMove (Position position, Position destination) {
-        return !isKing(get(position)) && containsMove(position, destination);
+    public int generateMoves (int[] moves) {
+        return moveGenerator.generate(moves);
     }
 
     /**
-     * Check to see if a particular piece is a King.
-     * @param piece         the piece to check
-     * @return              true if the piece is a King
+     * Load the legal captures and promotions of the team who's turn it is.
+     * Intended to be used by engines looking at the captures that follow a
+     * position, without the quiet moves.
+     * @param moves     the array to load the moves to, at least MAX_MOVES long
+     * @return          the number of moves loaded (see {@link Move})
      */
-    private boolean isKing (Piece piece) {
-        return piece instanceof King;
+    public int generateCaptures (int[] moves) {
+        return moveGenerator.generateCaptures(moves);
     }
 
     /**
-     * Check to see if a piece contains a particular move.
-     * @param destination   the move to check for
-     * @return              true if the piece contains the move
+     * Get the squares that the piece on a particular square can legally move to.
+     * The piece must belong to the team who's turn it is.
+     * @param square    the index of the square of the piece
+     * @return          a bitboard of the destination squares
      */
-    private boolean containsMove (Position position, Position destination) {
-        return get(position).getAllPossibleMoves(position).contains(destination);
+    public long getLegalMoves (int square) {
+        return moveGenerator.getLegalMovesOf(square);
     }
 
     /**
@@ -300,6 +667,43 @@ public class Board implements Iterable<Position>, Serializable {
      */
     void toggleTurn () {
         turn = (turn.equals(Team.WHITE)) ? Team.BLACK : Team.WHITE;
+        hash ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    /**
+     * Get the Zobrist hash of the current position. Two positions with the
+     * same pieces on the same squares, the same side to move, the same castling
+     * rights and the same en passant column have the same hash.
+     * @return      the 64-bit hash of the position
+     */
+    public long getHash () {
+        return hash;
+    }
+
+    /**
+     * Get the Zobrist hash of the Pawns on the board. Two positions with the
+     * Pawns of both teams on the same squares have the same Pawn hash.
+     * @return      the 64-bit hash of the Pawns
+     */
+    public long getPawnHash () {
+        return pawnHash;
+    }
+
+    /**
+     * Toggle keys in or out of the hash. Intended to be used by the movement
+     * handler for the castling rights and en passant keys.
+     * @param keys  the keys to XOR into the hash
+     */
+    void updateHash (long keys) {
+        hash ^= keys;
+    }
+
+    /**
+     * Overwrite the hash. Intended to be used when a move is undone.
+     * @param hash  the hash of the restored position
+     */
+    void setHash (long hash) {
+        this.hash = hash;
     }
 
     /**
@@ -332,7 +736,8 @@ public class Board implements Iterable<Position>, Serializable {
      * @return          the king of the piece's team
      */
     Position getKing (Team team) {
-        return (team == Team.WHITE) ? kingWhite : kingBlack;
+        long king = getBitboard(team, PieceType.KING);
+        return (king == 0) ? null : Position.fromSquare(Long.numberOfTrailingZeros(king));
     }
 
     /**
@@ -340,16 +745,23 @@ public class Board implements Iterable<Position>, Serializable {
      * @return  returns the game board iterator
      */
     public Iterator<Position> iterator () {
-        return new BoardIterator(array);
+        return new BoardIterator(getOccupancy());
     }
 
     /**
      * Set the team who's turn it should be. Intended to be used when a game
      * is being loaded from a saved game file.
+     * <br />
+     * Loading is finished by setting the turn, so this is also where the
+     * castling rights in the hash are brought up to date with the pieces
+     * that were marked as moved while loading.
      * @param team  the team who's turn it should be
      */
     public void setTurn (Team team) {
-        this.turn = team;
+        if (team != turn) {
+            toggleTurn();
+        }
+        movementHandler.updateCastlingRights();
     }
 
     /**
@@ -381,16 +793,6 @@ public class Board implements Iterable<Position>, Serializable {
         winner = team;
     }
 
-    /**
-     * Check to see if a piece can move to a position without
-     * getting a check on it's own team's King.
-     * @param destination   the position the piece would move to
-     * @return              true if there would be a check
-     */
-    public boolean wouldBeCheck (Position position, Position destination) {
-        return winnerHandler.wouldBeCheck(position, destination);
-    }
-
     /**
      * Declare the winner in a pop up window that is run on a different thread.
      */
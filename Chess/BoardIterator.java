@@ -1,39 +1,25 @@
 package Chess;
 
-import Chess.Pieces.Piece;
-
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
  * Iterates through all the pieces on the Board.
  * Empty squares are skipped.
+ * <br />
+ * The iterator walks the set bits of an occupancy bitboard, so only
+ * the occupied squares are visited.
  */
 class BoardIterator implements Iterator<Position> {
 
-    private Piece[][] array;
-    private Position current = new Position(0, 0);
+    private long remaining;
 
     /**
      * Constructs the iterator.
+     * @param occupied  the bitboard of the squares to visit
      */
-    BoardIterator(Piece[][] array) {
-        this.array = array;
-        current = findNext(current);
-    }
-
-    /**
-     * Finds the next non-empty position on the board.
-     * @param p     the position to start searching from (inclusive)
-     * @return      the next non-empty position
-     */
-    private Position findNext (Position p) {
-
-        while (p.getY() < 8 && array[p.getY()][p.getX()] == null) {
-            p = increment(p);
-        }
-
-        return p;
+    BoardIterator(long occupied) {
+        this.remaining = occupied;
     }
 
     /**
@@ -41,25 +27,7 @@ class BoardIterator implements Iterator<Position> {
      * @return  true if there is another piece
      */
     public boolean hasNext () {
-        return current.getX() < 8 && current.getY() < 8;
-    }
-
-    /**
-     * Increments the position to the next square to its left.
-     * If the position is the last square on a given row,
-     * it returns the first square on the next row.
-     * @param position  the position to increment
-     * @return          the next immediate position to the right
-     */
-    private Position increment (Position position) {
-
-        if (position.getX() < 7) {
-            position = new Position(position.getX() + 1, position.getY());
-        } else {
-            position = new Position(0, position.getY() + 1);
-        }
-
-        return position;
+        return remaining != 0;
     }
 
     /**
@@ -72,11 +40,10 @@ class BoardIterator implements Iterator<Position> {
             throw new NoSuchElementException();
         }
 
-        Position prev = current;
-        current = increment(current);
-        current = findNext(current);
+        int square = Long.numberOfTrailingZeros(remaining);
+        remaining &= remaining - 1;
 
-        return prev;
+        return Position.fromSquare(square);
     }
 
 }
@@ -1,193 +1,175 @@
 package Chess;
 
-import Chess.Pieces.Piece;
+import Chess.Pieces.PieceType;
 
 /**
- * Represents a move that is made on the board. Used for keeping track
- * of the moves and for undoing moves.
+ * Represents a move that is made on the board. Moves are packed into a
+ * single int so that they can be generated, stored and undone without
+ * creating any objects.
  * </br>
- * The Move object holds four positions and their respective pieces.
- * The first two positions are the starting location and destination
- * of the piece that the player moved directly. The other two are used
- * when special moves are made. When the player castles, the third and
- * fourth position store the starting location and destination of the
- * Rook. When an en passant occurs, the third position stores the Pawn
- * that had been eaten. Finally, the Move object also holds a position
- * for en passant itself, that is, the position that would result in
- * an en passant if a Pawn was to move there.
+ * The bits of a move are laid out as follows:
+ * <pre>
+ *  0 -  5   the square the piece moved from (see {@link Position#toSquare()})
+ *  6 - 11   the square the piece moved to
+ * 12 - 14   the type of the piece that moved
+ * 15 - 17   the type of the piece that was eaten, if any
+ *      18   set if a piece was eaten
+ *      19   set if a Pawn moved two squares
+ *      20   set if the move is an en passant
+ *      21   set if the move is castling (the King's move is stored)
+ *      22   set if a Pawn is promoted to a Queen
+ * </pre>
+ * During an en passant the eaten Pawn is not on the destination square,
+ * it is the square directly behind it.
  */
-class Move {
-
-    private Board board;
-
-    private Position position1, position2, position3, position4;
-    private Piece piece1, piece2, piece3, piece4;
-
-    private Position enPassant;
+public final class Move {
 
     /**
-     * The states of two positions on the board prior to a move being made.
-     * @param board     the board that contains the pieces being moved
-     * @param position      the location of the piece that will be moved
-     * @param destination   the destination of the piece to be moved
+     * A value that is never a legal move.
      */
-    Move (Board board, Position position, Position destination) {
+    public static final int NONE = 0;
 
-        this.board = board;
+    public static final int CAPTURE       = 1 << 18;
+    public static final int DOUBLE_PUSH   = 1 << 19;
+    public static final int EN_PASSANT    = 1 << 20;
+    public static final int CASTLING      = 1 << 21;
+    public static final int PROMOTION     = 1 << 22;
 
-        this.position1 = position;
-        this.position2 = destination;
+    private static final int TO_SHIFT       = 6;
+    private static final int PIECE_SHIFT    = 12;
+    private static final int CAPTURED_SHIFT = 15;
 
-        // The piece being moved will never be null.
-        this.piece1 = board.get(position).clone(board);
-
-        // The destination may be null, if no piece is eaten.
-        this.piece2 = (board.get(destination) == null) ? null : board.get(destination).clone(board);
-    }
+    private static final PieceType[] TYPES = PieceType.values();
 
     /**
-     * Get the starting position of the piece that was moved directly by the player.
-     * @return  the starting position of the piece
+     * Move cannot be instantiated.
      */
-    Position getPosition1 () {
-        return position1;
-    }
+    private Move () {}
 
     /**
-     * Get the destination position of the piece that was moved directly by the player.
-     * @return  the destination position of the piece
+     * Pack a move into an int.
+     * @param from      the square the piece moves from
+     * @param to        the square the piece moves to
+     * @param piece     the type of the piece that moves
+     * @param captured  the type of the piece that is eaten, or null
+     * @param flags     any of DOUBLE_PUSH, EN_PASSANT, CASTLING and PROMOTION
+     * @return          the move
      */
-    Position getPosition2 () {
-        return position2;
+    public static int create (int from, int to, PieceType piece, PieceType captured, int flags) {
+        int move = from | (to << TO_SHIFT) | (piece.ordinal() << PIECE_SHIFT) | flags;
+        if (captured != null) {
+            move |= CAPTURE | (captured.ordinal() << CAPTURED_SHIFT);
+        }
+        return move;
     }
 
     /**
-     * Get the piece that was moved directly by the player, before it was moved.
-     * @return  the piece that was moved
+     * Get the square the piece moved from.
+     * @param move  the move
+     * @return      the square index
      */
-    Piece getPiece1 () {
-        return piece1;
+    public static int getFrom (int move) {
+        return move & 63;
     }
 
     /**
-     * Get the piece that was eaten.
-     * @return  null if no piece was eaten
+     * Get the square the piece moved to.
+     * @param move  the move
+     * @return      the square index
      */
-    Piece getPiece2 () {
-        return piece2;
+    public static int getTo (int move) {
+        return (move >>> TO_SHIFT) & 63;
     }
 
     /**
-     * Save the original position of the Rook if castling occurred.
-     * Or save the position of the Pawn that was eaten during an en passant.
-     * @param position  the starting position of the Rook
+     * Get the type of the piece that moved.
+     * @param move  the move
+     * @return      the type of the piece
      */
-    void setPosition3 (Position position) {
-        this.position3 = position;
-        this.piece3 = board.get(position).clone(board);
+    public static PieceType getPiece (int move) {
+        return TYPES[(move >>> PIECE_SHIFT) & 7];
     }
 
     /**
-     * Get the original position of the Rook before castling occurred.
-     * Or get the position of the Pawn that was eaten during an en passant.
-     * @return  null if no castling or en passant occurred
+     * Get the type of the piece that was eaten.
+     * @param move  the move
+     * @return      the type of the piece, or null if nothing was eaten
      */
-    Position getPosition3 () {
-        return position3;
+    public static PieceType getCaptured (int move) {
+        return isCapture(move) ? TYPES[(move >>> CAPTURED_SHIFT) & 7] : null;
     }
 
     /**
-     * Get the Rook piece if castling occurred, in the state it was in
-     * before castling occurred. Or get the Pawn piece if en passant occurred.
-     * @return  null if no castling or en passant occurred
+     * Check to see if a piece was eaten, including by en passant.
+     * @param move  the move
+     * @return      true if a piece was eaten
      */
-    Piece getPiece3 () {
-        return piece3;
+    public static boolean isCapture (int move) {
+        return (move & CAPTURE) != 0;
     }
 
     /**
-     * Save the destination position of the Rook if castling occurred.
-     * @param position  the destination position of the Rook
+     * Check to see if a Pawn moved two squares.
+     * @param move  the move
+     * @return      true if it was a double Pawn push
      */
-    void setPosition4 (Position position) {
-        this.position4 = position;
-        this.piece4 = (board.get(position) == null) ? null : board.get(position).clone(board);
+    public static boolean isDoublePush (int move) {
+        return (move & DOUBLE_PUSH) != 0;
     }
 
     /**
-     * Save the destination position of the Rook if castling occurred.
-     * @return  null if no castling occurred
+     * Check to see if the move is an en passant.
+     * @param move  the move
+     * @return      true if it is an en passant
      */
-    Position getPosition4 () {
-        return position4;
+    public static boolean isEnPassant (int move) {
+        return (move & EN_PASSANT) != 0;
     }
 
     /**
-     * Get the Rook piece if castling occurred, in the state it was in
-     * after castling occurred.
-     * @return  null if no castling occurred
+     * Check to see if the move is castling.
+     * @param move  the move
+     * @return      true if the King castled
      */
-    Piece getPiece4 () {
-        return piece4;
+    public static boolean isCastling (int move) {
+        return (move & CASTLING) != 0;
     }
 
     /**
-     * Set the position that would result in an en passant if a Pawn moved there.
-     * @param enPassant     the en passant position
+     * Check to see if a Pawn was promoted.
+     * @param move  the move
+     * @return      true if a Pawn became a Queen
      */
-    void setEnPassant (Position enPassant) {
-        this.enPassant = (enPassant == null) ? null : enPassant;
+    public static boolean isPromotion (int move) {
+        return (move & PROMOTION) != 0;
     }
 
     /**
-     * Get the position that would result in an en passant if a Pawn moved there.
-     * @return  the en passant position
+     * Describe a move in the same format as the game's move log.
+     * @param move  the move
+     * @return      a human readable move
      */
-    Position getEnPassant () {
-        return enPassant;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        Move move = (Move) o;
-
-        if (position1 != null ? !position1.equals(move.position1) : move.position1 != null) return false;
-        if (position2 != null ? !position2.equals(move.position2) : move.position2 != null) return false;
-        if (piece1 != null ? !piece1.equals(move.piece1) : move.piece1 != null) return false;
-        return piece2 != null ? piece2.equals(move.piece2) : move.piece2 == null;
-
-    }
-
-    @Override
-    public int hashCode() {
-        int result = position1 != null ? position1.hashCode() : 0;
-        result = 31 * result + (position2 != null ? position2.hashCode() : 0);
-        result = 31 * result + (piece1 != null ? piece1.hashCode() : 0);
-        result = 31 * result + (piece2 != null ? piece2.hashCode() : 0);
-        return result;
-    }
-
-    @Override
-    public String toString () {
+    public static String toString (int move) {
+        Position from = Position.fromSquare(getFrom(move));
+        Position to = Position.fromSquare(getTo(move));
 
         StringBuilder sb = new StringBuilder();
 
-        sb.append(piece1);
-        sb.append(" (" + position1.getX() + ", " + position1.getY() + ")\t-> ");
-        sb.append("(" + position2.getX() + ", " + position2.getY() + ")");
-        sb.append(" | EnPassant: " + enPassant);
+        sb.append(getPiece(move));
+        sb.append(" (" + from.getX() + ", " + from.getY() + ")\t-> ");
+        sb.append("(" + to.getX() + ", " + to.getY() + ")");
 
-        if (position3 != null) {
-            sb.append(" | " + piece3);
-            sb.append(" (" + position3.getX() + ", " + position3.getY() + ")");
+        if (isCapture(move)) {
+            sb.append(" | Eats: " + getCaptured(move));
         }
-
-        if (position4 != null) {
-            sb.append("\t-> (" + position4.getX() + ", " + position4.getY() + ")");
-
+        if (isEnPassant(move)) {
+            sb.append(" | EnPassant");
+        }
+        if (isCastling(move)) {
+            sb.append(" | Castling");
+        }
+        if (isPromotion(move)) {
+            sb.append(" | Promotion");
         }
 
         sb.append("\n");
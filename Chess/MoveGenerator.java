@@ -0,0 +1,352 @@
+package Chess;
+
+import Chess.Pieces.*;
+
+/**
+ * Generates the legal moves of the team who's turn it is.
+ * <br />
+ * Rather than trying each move and checking if it leaves the King in check,
+ * the pieces giving check and the pieces pinned to the King are found once
+ * per position. A move by any piece other than the King is then legal if it
+ * lands on the check mask (it eats the checking piece or blocks it) and, for
+ * a pinned piece, if it stays on the line between the King and the pinning
+ * piece. The King may go to any square that is not attacked once the King
+ * has left its own square. En passant is the one move that can uncover a
+ * check along the row of both Pawns, so it is verified on the board as it
+ * would be after the move.
+ */
+class MoveGenerator {
+
+    /**
+     * The first and last rows, where a Pawn is promoted.
+     */
+    private static final long PROMOTION_SQUARES = 0xFFL | (0xFFL << 56);
+
+    private Board board;
+
+    private Team team, enemy;
+    private int king;
+    private long occupied;
+
+    /**
+     * The pieces giving check to the King.
+     */
+    private long checkers;
+
+    /**
+     * The squares that a piece other than the King must move to: everything
+     * when not in check, the checking piece and the squares between it and the
+     * King when in check, and nothing when two pieces give check.
+     */
+    private long checkMask;
+
+    /**
+     * The pieces pinned to the King and, for each of them, the squares
+     * between the King and the pinning piece (including the pinning piece).
+     */
+    private long pinned;
+    private long[] pinMasks = new long[64];
+
+    /**
+     * Construct the MoveGenerator.
+     * @param board     the board to generate the moves of
+     */
+    MoveGenerator (Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Load every legal move of the team who's turn it is.
+     * @param moves     the array to load the moves to (see {@link Move})
+     * @return          the number of moves loaded
+     */
+    int generate (int[] moves) {
+        return generate(moves, false);
+    }
+
+    /**
+     * Load the legal captures and promotions of the team who's turn it is.
+     * En passant counts as a capture.
+     * @param moves     the array to load the moves to (see {@link Move})
+     * @return          the number of moves loaded
+     */
+    int generateCaptures (int[] moves) {
+        return generate(moves, true);
+    }
+
+    /**
+     * Load the legal moves of the team who's turn it is.
+     * @param moves         the array to load the moves to
+     * @param capturesOnly  true to only load captures and promotions
+     * @return              the number of moves loaded
+     */
+    private int generate (int[] moves, boolean capturesOnly) {
+        prepare();
+
+        int count = 0;
+        long pieces = board.getOccupancy(team);
+        long captures = board.getOccupancy(enemy);
+        long pawnCaptures = captures | PROMOTION_SQUARES;
+
+        if (board.getEnPassant() != null) {
+            pawnCaptures |= 1L << board.getEnPassant().toSquare();
+        }
+
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            long destinations = getLegalMoves(from);
+
+            if (capturesOnly) {
+                destinations &= (board.get(from).getType() == PieceType.PAWN) ? pawnCaptures : captures;
+            }
+
+            while (destinations != 0) {
+                int to = Long.numberOfTrailingZeros(destinations);
+                destinations &= destinations - 1;
+                moves[count++] = board.movementHandler.createMove(from, to);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the legal destinations of the piece on a particular square.
+     * The piece must belong to the team who's turn it is.
+     * @param square    the square of the piece
+     * @return          a bitboard of the squares the piece can move to
+     */
+    long getLegalMovesOf (int square) {
+        prepare();
+        return getLegalMoves(square);
+    }
+
+    /**
+     * Check to see if a single move is legal without generating any other
+     * moves. The move must be one the piece could make on an empty board
+     * of enemies, and the King must not be attacked on the board as it would
+     * be after the move. Castling is rare enough to be checked by generating
+     * the moves of the King.
+     * @param from      the square of the piece to move
+     * @param to        the destination square
+     * @return          true if the piece of the team who's turn it is can move there
+     */
+    boolean isLegal (int from, int to) {
+        Piece piece = board.get(from);
+        Team team = board.getTurn();
+
+        if (piece == null || piece.getTeam() != team) {
+            return false;
+        }
+
+        long target = 1L << to;
+
+        if (piece.getType() == PieceType.KING && Math.abs(from - to) == 2) {
+            return (getLegalMovesOf(from) & target) != 0;
+        }
+
+        if ((piece.getPseudoLegalMoves(from) & target) == 0) {
+            return false;
+        }
+
+        long kings = board.getBitboard(team, PieceType.KING);
+
+        if (kings == 0) {
+            return true;
+        }
+
+        int king = (piece.getType() == PieceType.KING) ? to : Long.numberOfTrailingZeros(kings);
+        long captured = target;
+
+        if (piece.getType() == PieceType.PAWN && board.get(to) == null && ((from ^ to) & 7) != 0) {
+            captured = 1L << ((team == Team.WHITE) ? to + 8 : to - 8);
+        }
+
+        long after = (board.getOccupancy() & ~(1L << from) & ~captured) | target;
+
+        return (board.getAttackers(king, team.getOpponent(), after) & ~captured) == 0;
+    }
+
+    /**
+     * Check to see if the King of the team who's turn it is, is in check.
+     * @return          true if the King is attacked
+     */
+    boolean isInCheck () {
+        Team team = board.getTurn();
+        long king = board.getBitboard(team, PieceType.KING);
+        return king != 0
+                && board.getAttackers(Long.numberOfTrailingZeros(king), team.getOpponent(), board.getOccupancy()) != 0;
+    }
+
+    /**
+     * Find the checking and pinned pieces of the current position.
+     */
+    private void prepare () {
+        team = board.getTurn();
+        enemy = team.getOpponent();
+        occupied = board.getOccupancy();
+        pinned = 0;
+
+        long kings = board.getBitboard(team, PieceType.KING);
+
+        if (kings == 0) {
+            // A custom board may not have a King, so nothing can be in check.
+            king = -1;
+            checkers = 0;
+            checkMask = -1L;
+            return;
+        }
+
+        king = Long.numberOfTrailingZeros(kings);
+        checkers = board.getAttackers(king, enemy, occupied);
+
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        } else {
+            checkMask = 0;
+        }
+
+        long queens = board.getBitboard(enemy, PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, 0) & (board.getBitboard(enemy, PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, 0) & (board.getBitboard(enemy, PieceType.BISHOP) | queens));
+
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+
+            long line = Attacks.between(king, sniper);
+            long blockers = line & occupied;
+
+            if (Long.bitCount(blockers) == 1 && (blockers & board.getOccupancy(team)) != 0) {
+                pinned |= blockers;
+                pinMasks[Long.numberOfTrailingZeros(blockers)] = line | (1L << sniper);
+            }
+        }
+    }
+
+    /**
+     * Get the legal destinations of a piece once the position is prepared.
+     * @param from      the square of the piece
+     * @return          a bitboard of the squares the piece can move to
+     */
+    private long getLegalMoves (int from) {
+        Piece piece = board.get(from);
+
+        if (from == king) {
+            return getKingMoves(from) | getCastlingMoves();
+        }
+
+        long destinations = piece.getPseudoLegalMoves(from);
+        long enPassant = 0;
+
+        if (piece.getType() == PieceType.PAWN && board.getEnPassant() != null) {
+            enPassant = destinations & (1L << board.getEnPassant().toSquare());
+            destinations &= ~enPassant;
+            if (enPassant != 0 && !isLegalEnPassant(from, board.getEnPassant().toSquare())) {
+                enPassant = 0;
+            }
+        }
+
+        destinations &= checkMask;
+
+        if ((pinned & (1L << from)) != 0) {
+            destinations &= pinMasks[from];
+        }
+
+        return destinations | enPassant;
+    }
+
+    /**
+     * Get the squares the King can step to without being attacked. The King
+     * is taken off the board first so that it does not hide the squares
+     * behind it from a piece attacking along a line.
+     * @param from      the square of the King
+     * @return          a bitboard of the squares the King can move to
+     */
+    private long getKingMoves (int from) {
+        long destinations = board.get(from).getPseudoLegalMoves(from);
+        long withoutKing = occupied & ~(1L << from);
+        long safe = 0;
+
+        while (destinations != 0) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+
+            if (board.getAttackers(to, enemy, withoutKing) == 0) {
+                safe |= 1L << to;
+            }
+        }
+
+        return safe;
+    }
+
+    /**
+     * Get the squares the King can castle to. The King cannot castle out of,
+     * through or into check, and the squares between the King and the Rook
+     * must be empty.
+     * @return          a bitboard of the castling destinations of the King
+     */
+    private long getCastlingMoves () {
+        if (checkers != 0) {
+            return 0;
+        }
+
+        int rights = board.movementHandler.getCastlingRights();
+        long destinations = 0;
+
+        if (team == Team.WHITE) {
+            if ((rights & MovementHandler.WHITE_KING_SIDE) != 0 && canCastle(0x60L << 56, 61, 62)) {
+                destinations |= 1L << 62;
+            }
+            if ((rights & MovementHandler.WHITE_QUEEN_SIDE) != 0 && canCastle(0x0EL << 56, 59, 58)) {
+                destinations |= 1L << 58;
+            }
+        } else {
+            if ((rights & MovementHandler.BLACK_KING_SIDE) != 0 && canCastle(0x60L, 5, 6)) {
+                destinations |= 1L << 6;
+            }
+            if ((rights & MovementHandler.BLACK_QUEEN_SIDE) != 0 && canCastle(0x0EL, 3, 2)) {
+                destinations |= 1L << 2;
+            }
+        }
+
+        return destinations;
+    }
+
+    /**
+     * Check to see if the King can castle along a particular path.
+     * @param empty     the squares between the King and the Rook
+     * @param passing   the square the King passes over
+     * @param to        the square the King lands on
+     * @return          true if castling is possible
+     */
+    private boolean canCastle (long empty, int passing, int to) {
+        return (occupied & empty) == 0
+                && board.getAttackers(passing, enemy, occupied) == 0
+                && board.getAttackers(to, enemy, occupied) == 0;
+    }
+
+    /**
+     * Check to see if an en passant leaves the King safe by looking at the
+     * board as it would be with both Pawns gone and the eating Pawn on its
+     * destination.
+     * @param from      the square of the eating Pawn
+     * @param to        the en passant square
+     * @return          true if the King is not attacked after the move
+     */
+    private boolean isLegalEnPassant (int from, int to) {
+        if (king < 0) {
+            return true;
+        }
+
+        int victim = (team == Team.WHITE) ? to + 8 : to - 8;
+        long after = (occupied & ~(1L << from) & ~(1L << victim)) | (1L << to);
+
+        return (board.getAttackers(king, enemy, after) & ~(1L << victim)) == 0;
+    }
+
+}
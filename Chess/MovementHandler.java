@@ -3,18 +3,56 @@ package Chess;
 import Chess.Pieces.*;
 
 import java.io.Serializable;
-import java.util.HashSet;
-import java.util.Stack;
+import java.util.Arrays;
 
 /**
  * Handles the special moves, including en passant, castling and pawn promotion.
  * All pieces that are moved come through this class to be evaluated.
+ * <br />
+ * Moves are kept on an undo stack made of primitive arrays, one entry per
+ * move made. Each entry holds the move itself and whatever the move destroys:
+ * the hash, en passant square and castling rights of the previous position,
+ * whether the moved piece had moved before, the piece that was eaten and
+ * the Pawn that was promoted. Making and undoing a move therefore does not
+ * create any objects, apart from the Queen of a promotion.
  */
 public class MovementHandler implements Serializable {
 
+    /**
+     * The castling rights, one bit each. A right is kept for as long as
+     * the King and the Rook on that side have not moved.
+     */
+    static final int WHITE_KING_SIDE    = 1;
+    static final int WHITE_QUEEN_SIDE   = 2;
+    static final int BLACK_KING_SIDE    = 4;
+    static final int BLACK_QUEEN_SIDE   = 8;
+
+    /**
+     * The en passant square when there is none.
+     */
+    private static final int NO_SQUARE = -1;
+
     private Board board;
-    private Position enPassant;
-    Stack<Move> moves;
+    private int enPassant;
+    private int castlingRights;
+
+    /**
+     * The index on the undo stack of the first position that can be repeated:
+     * the one right after the last capture, Pawn move, change of the castling
+     * rights or null move, none of which can be undone by later moves. The
+     * value it had before each move is kept on the stack.
+     */
+    private int irreversible;
+
+    private int count;
+    private int[] moves;
+    private int[] irreversibles;
+    private long[] hashes;
+    private int[] enPassants;
+    private int[] castlings;
+    private boolean[] moved;
+    private Piece[] captured;
+    private Piece[] promoted;
 
     /**
      * Construct the MovementHandler.
@@ -22,8 +60,37 @@ public class MovementHandler implements Serializable {
      */
     MovementHandler(Board board) {
         this.board = board;
-        enPassant = null;
-        moves = new Stack<>();
+        enPassant = NO_SQUARE;
+        count = 0;
+        allocate(256);
+    }
+
+    /**
+     * Construct a copy of a MovementHandler for a copy of its board, with the
+     * same en passant square, castling rights and undo stack. The pieces on
+     * the undo stack are copied to the new board.
+     * @param board     the copy of the game board
+     * @param other     the MovementHandler of the original board
+     */
+    MovementHandler(Board board, MovementHandler other) {
+        this.board = board;
+        enPassant = other.enPassant;
+        castlingRights = other.castlingRights;
+        irreversible = other.irreversible;
+        count = other.count;
+        moves = other.moves.clone();
+        irreversibles = other.irreversibles.clone();
+        hashes = other.hashes.clone();
+        enPassants = other.enPassants.clone();
+        castlings = other.castlings.clone();
+        moved = other.moved.clone();
+        captured = new Piece[other.captured.length];
+        promoted = new Piece[other.promoted.length];
+
+        for (int i = 0; i < count; i++) {
+            captured[i] = (other.captured[i] == null) ? null : other.captured[i].clone(board);
+            promoted[i] = (other.promoted[i] == null) ? null : other.promoted[i].clone(board);
+        }
     }
 
     /**
@@ -34,291 +101,352 @@ public class MovementHandler implements Serializable {
      */
     void move (Position position, int x, int y) {
 
-        HashSet<Position> hashSet = board.get(position).getAllPossibleMoves(position);
-        Position destination = new Position(x, y);
-
-        if (!hashSet.contains(destination)) {
+        if (x < 0 || x > 7 || y < 0 || y > 7) {
             return;
         }
 
-        Move move = new Move(board, position, destination);
-        move.setEnPassant(enPassant);
-        moves.push(move);
+        int from = position.toSquare();
+        int to = y * 8 + x;
 
-        markEnPassantPosition(position, destination);
-        performEnPassant(position, destination);
-        castling(position, destination);
-        markAsMoved(position);
-        board.move(position, destination);
+        if (!board.isLegal(from, to)) {
+            return;
+        }
 
-        pawnPromotion(destination);
+        make(createMove(from, to));
     }
 
     /**
-     * Undo the last move that was made.
+     * Pack the move of the piece on one square to another square, working out
+     * which special move it is from the pieces on the board.
+     * @param from      the square of the piece to move
+     * @param to        the destination square
+     * @return          the move
      */
-    boolean undo () {
-        if (moves.isEmpty()) {
-            return false;
+    int createMove (int from, int to) {
+        Piece piece = board.get(from);
+        Piece target = board.get(to);
+        PieceType captured = (target == null) ? null : target.getType();
+        int flags = 0;
+
+        if (piece.getType() == PieceType.PAWN) {
+            if (Math.abs(from - to) == 16) {
+                flags |= Move.DOUBLE_PUSH;
+            } else if (target == null && (from & 7) != (to & 7)) {
+                flags |= Move.EN_PASSANT;
+                captured = PieceType.PAWN;
+            }
+            if (to < 8 || to >= 56) {
+                flags |= Move.PROMOTION;
+            }
+        } else if (piece.getType() == PieceType.KING && Math.abs(from - to) == 2) {
+            flags |= Move.CASTLING;
         }
 
-        Move move = moves.pop();
+        return Move.create(from, to, piece.getType(), captured, flags);
+    }
+
+    /**
+     * Make a move on the board and push it onto the undo stack.
+     * The move must be legal.
+     * @param move  the move to make
+     */
+    void make (int move) {
 
-        Piece p1 = move.getPiece1();
-        Piece p2 = move.getPiece2();
-        Piece p3 = move.getPiece3();
-        Piece p4 = move.getPiece4();
+        if (count == moves.length) {
+            allocate(moves.length * 2);
+        }
 
-        Position pos1 = move.getPosition1();
-        Position pos2 = move.getPosition2();
-        Position pos3 = move.getPosition3();
-        Position pos4 = move.getPosition4();
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Piece piece = board.get(from);
+
+        moves[count] = move;
+        irreversibles[count] = irreversible;
+        hashes[count] = board.getHash();
+        enPassants[count] = enPassant;
+        castlings[count] = castlingRights;
+        moved[count] = piece.hasMoved();
+        captured[count] = board.get(to);
+        promoted[count] = null;
+
+        if (Move.isEnPassant(move)) {
+            int square = enPassantVictim(piece.getTeam(), to);
+            captured[count] = board.get(square);
+            board.delete(square);
+        }
 
-        Position enPassant = move.getEnPassant();
-        setEnPassant(enPassant);
+        if (Move.isCastling(move)) {
+            moveRook(rookStart(to), rookDestination(to));
+        }
 
-        board.add(p1, pos1);
-        board.updateKings(p1, pos1);
+        board.delete(from);
+        board.add(piece, to);
+        piece.markAsMoved();
 
-        if (p2 != null) {
-            board.add(p2, pos2);
-            board.updateKings(p2, pos2);
-        } else {
-            board.add(null, pos2);
+        if (Move.isPromotion(move)) {
+            promoted[count] = piece;
+            board.add(new Queen(board, piece.getTeam()), to);
         }
 
-        if (p3 != null) {
-            board.add(p3, pos3);
-            board.updateKings(p3, pos3);
+        count++;
+
+        setEnPassant(Move.isDoublePush(move) ? (from + to) / 2 : NO_SQUARE);
+        board.toggleTurn();
+        updateCastlingRights();
+
+        if (Move.isCapture(move) || Move.getPiece(move) == PieceType.PAWN
+                || castlingRights != castlings[count - 1]) {
+            irreversible = count;
         }
+    }
 
-        if (p4 != null) {
-            board.add(p4, pos4);
-            board.updateKings(p4, pos4);
-        } else {
-            if (pos4 != null) {
-                board.add(null, pos4);
-            }
+    /**
+     * Pass the turn to the other team without moving a piece (a "null move").
+     * Intended to be used by engines, which look at what the other team could
+     * do if it could move twice. It is pushed onto the undo stack as Move.NONE.
+     */
+    void makeNull () {
+
+        if (count == moves.length) {
+            allocate(moves.length * 2);
         }
 
-        return true;
-    }
+        moves[count] = Move.NONE;
+        irreversibles[count] = irreversible;
+        hashes[count] = board.getHash();
+        enPassants[count] = enPassant;
+        castlings[count] = castlingRights;
+        moved[count] = false;
+        captured[count] = null;
+        promoted[count] = null;
 
-    int getMoveCount () {
-        return moves.size();
+        count++;
+        irreversible = count;
+
+        setEnPassant(NO_SQUARE);
+        board.toggleTurn();
     }
 
     /**
-     * Check to see if an en passant occurred. If so, removed the piece that was eaten.
-     * @param position      the piece that will perform the en passant
-     * @param destination   the destination of the piece
+     * Undo the last move that was made.
      */
-    private Position performEnPassant (Position position, Position destination) {
+    boolean undo () {
+        if (count == 0) {
+            return false;
+        }
 
-        if (enPassantOccurredGoingNorth(position, destination)) {
-            Position pos = new Position(destination.getX(), destination.getY() + 1);
-            moves.peek().setPosition3(pos);
-            board.delete(pos);
-            return pos;
+        count--;
+
+        int move = moves[count];
+        irreversible = irreversibles[count];
+
+        if (move == Move.NONE) {
+            board.toggleTurn();
+            enPassant = enPassants[count];
+            castlingRights = castlings[count];
+            board.setHash(hashes[count]);
+            return true;
         }
 
-        if (enPassantOccurredGoingSouth(position, destination)) {
-            Position pos = new Position(destination.getX(), destination.getY() - 1);
-            moves.peek().setPosition3(pos);
-            board.delete(pos);
-            return pos;
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Piece piece = Move.isPromotion(move) ? promoted[count] : board.get(to);
+
+        board.delete(to);
+        board.add(piece, from);
+        piece.setMoved(moved[count]);
+
+        if (Move.isCastling(move)) {
+            moveRook(rookDestination(to), rookStart(to));
+            board.get(rookStart(to)).setMoved(false);
+        }
+
+        if (captured[count] != null) {
+            int square = Move.isEnPassant(move) ? enPassantVictim(piece.getTeam(), to) : to;
+            board.add(captured[count], square);
         }
 
-        return null;
+        captured[count] = null;
+        promoted[count] = null;
+
+        board.toggleTurn();
+        enPassant = enPassants[count];
+        castlingRights = castlings[count];
+        board.setHash(hashes[count]);
+
+        return true;
     }
 
     /**
-     * Check to see if en passant occurred with a pawn facing North.
-     * @param position      the starting position of the piece
-     * @param destination   the destination of the piece
-     * @return              true if an en passant was performed
+     * Grow the undo stack, keeping the moves that were already made.
+     * @param capacity  the new number of entries
      */
-    private boolean enPassantOccurredGoingNorth (Position position, Position destination) {
-        return pawnIsGoingNorth(position)
-                && destinationIsDiagonal(position, destination)
-                && board.isEmptySpot(destination);
+    private void allocate (int capacity) {
+        moves = (moves == null) ? new int[capacity] : Arrays.copyOf(moves, capacity);
+        irreversibles = (irreversibles == null) ? new int[capacity] : Arrays.copyOf(irreversibles, capacity);
+        hashes = (hashes == null) ? new long[capacity] : Arrays.copyOf(hashes, capacity);
+        enPassants = (enPassants == null) ? new int[capacity] : Arrays.copyOf(enPassants, capacity);
+        castlings = (castlings == null) ? new int[capacity] : Arrays.copyOf(castlings, capacity);
+        moved = (moved == null) ? new boolean[capacity] : Arrays.copyOf(moved, capacity);
+        captured = (captured == null) ? new Piece[capacity] : Arrays.copyOf(captured, capacity);
+        promoted = (promoted == null) ? new Piece[capacity] : Arrays.copyOf(promoted, capacity);
     }
 
-    /**
-     * Check to see if en passant occurred with a pawn facing South.
-     * @param position      the starting position of the piece
-     * @param destination   the destination of the piece
-     * @return              true if an en passant was performed
-     */
-    private boolean enPassantOccurredGoingSouth (Position position, Position destination) {
-        return pawnIsGoingSouth(position)
-                && destinationIsDiagonal(position, destination)
-                && board.isEmptySpot(destination);
+    int getMoveCount () {
+        return count;
     }
 
     /**
-     * Check to see if a pawn is going North.
-     * @param p         the position of the Pawn
-     * @return          true if it is going North.
+     * Check to see if the move on top of the undo stack is a null move.
+     * @return      true if the last move made was a null move
      */
-    private boolean pawnIsGoingNorth (Position p) {
-        return board.get(p) instanceof Pawn && ((Pawn) board.get(p)).goingNorth();
+    boolean isNullMoveLast () {
+        return count > 0 && moves[count - 1] == Move.NONE;
     }
 
     /**
-     * Check to see if a pawn is going South.
-     * @param p         the position of the Pawn
-     * @return          true if it is going South
+     * Count how many times the current position occurred earlier in the game.
+     * Only every second position has the same side to move, so the others
+     * are skipped. A position from before the last irreversible move can
+     * never come back, so the search stops there; the positions before a
+     * null move were not really reached by the moves that followed, so it
+     * stops at a null move too.
+     * @return      the number of earlier occurrences of the current position
      */
-    private boolean pawnIsGoingSouth (Position p) {
-        return board.get(p) instanceof Pawn && !((Pawn) board.get(p)).goingNorth();
+    int getRepetitions () {
+        long hash = board.getHash();
+        int repetitions = 0;
+
+        for (int i = count - 2; i >= irreversible; i -= 2) {
+            if (hashes[i] == hash) {
+                repetitions++;
+            }
+        }
+
+        return repetitions;
     }
 
     /**
-     * Check to see if a pawn moved diagonally.
-     * This mean an en passant occurred.
-     * @param position      the starting position of the piece
-     * @param destination   the position of the piece
-     * @return              true if the piece moved diagonally
+     * Get the square of the Pawn that is eaten by an en passant.
+     * It is directly behind the square the eating Pawn moves to.
+     * @param team      the team of the eating Pawn
+     * @param to        the square the eating Pawn moves to
+     * @return          the square of the eaten Pawn
      */
-    private boolean destinationIsDiagonal (Position position, Position destination) {
-        return Math.abs(destination.getX() - position.getX()) > 0;
+    private static int enPassantVictim (Team team, int to) {
+        return (team == Team.WHITE) ? to + 8 : to - 8;
     }
 
     /**
-     * Check to see if castling occurred.
-     * If it did, it moves the pieces to the appropriate positions.
-     * @param position      the starting position of the piece
-     * @param destination   the position of where the piece moved to
+     * Get the starting square of the Rook when the King castles.
+     * @param kingDestination   the square the King moves to
+     * @return                  the square of the Rook
      */
-    private void castling (Position position, Position destination) {
-        Piece piece = board.get(position);
-
-        // Castling to the right.
-        if (piece instanceof King && !piece.hasMoved() && destination.getX() == 6) {
-            Position pos1 = new Position(7, destination.getY());
-            Position pos2 = new Position(5, position.getY());
-            moves.peek().setPosition3(pos1);
-            moves.peek().setPosition4(pos2);
-            board.move(pos1, pos2);
-            board.toggleTurn();
-        }
-
-        // Castling to the left.
-        if (piece instanceof King && !piece.hasMoved() && destination.getX() == 2) {
-            Position pos1 = new Position(0, destination.getY());
-            Position pos2 = new Position(3, position.getY());
-            moves.peek().setPosition3(pos1);
-            moves.peek().setPosition4(pos2);
-            board.move(pos1, pos2);
-            board.toggleTurn();
-        }
-
+    private static int rookStart (int kingDestination) {
+        return ((kingDestination & 7) == 6) ? kingDestination + 1 : kingDestination - 2;
     }
 
     /**
-     * Checks to see if a pawn has made it to the other end.
-     * If so, promote it to Queen.
-     * @param position  the position of th Pawn
+     * Get the destination of the Rook when the King castles.
+     * @param kingDestination   the square the King moves to
+     * @return                  the square the Rook moves to
      */
-    private void pawnPromotion (Position position) {
-        if (!(board.get(position) instanceof Pawn)) {
-            return;
-        }
-
-        if (board.get(position).getTeam().equals(Team.WHITE) && isOnTopRow(position)) {
-            Queen queen = new Queen(board, Team.WHITE);
-            board.delete(position);
-            board.add(queen, position);
-        }
-
-        if (board.get(position).getTeam().equals(Team.BLACK) && isOnBottomRow(position)) {
-            Queen queen = new Queen(board, Team.BLACK);
-            board.delete(position);
-            board.add(queen, position);
-        }
-
+    private static int rookDestination (int kingDestination) {
+        return ((kingDestination & 7) == 6) ? kingDestination - 1 : kingDestination + 1;
     }
 
     /**
-     * Mark a pawn as having moved two squares if that occurred.
-     * @param position      the starting position of the piece
-     * @param destination   the position of where the pawn moved to
+     * Move the Rook that takes part in castling.
+     * @param from      the square of the Rook
+     * @param to        the square the Rook moves to
      */
-    private void markEnPassantPosition(Position position, Position destination) {
-        if (pawnMovedTwoSquares(position, destination)) {
-            enPassant = new Position(position.getX(), (position.getY()+destination.getY())/2);
-        } else {
-            enPassant = null;
-        }
+    private void moveRook (int from, int to) {
+        Piece rook = board.get(from);
+        board.delete(from);
+        board.add(rook, to);
+        rook.markAsMoved();
     }
 
     /**
-     * Check to see if a pawn moved two squares.
-     * Useful for checking for en passant.
-     * @param position      the starting position of the piece
-     * @param destination   the position of where it moved to
-     * @return              true if it moved two squares
+     * Set the position that would result in an en passant if a Pawn moved there.
+     * @param enPassant  the position of the en passant
      */
-    private boolean pawnMovedTwoSquares (Position position, Position destination) {
-        return board.get(position) instanceof Pawn
-                && Math.abs(position.getY() - destination.getY()) > 1;
+    void setEnPassant (Position enPassant) {
+        setEnPassant((enPassant == null) ? NO_SQUARE : enPassant.toSquare());
     }
 
     /**
-     * Marks a piece as moved.
+     * Set the square that would result in an en passant if a Pawn moved there,
+     * toggling the en passant column in the hash.
+     * @param square    the square of the en passant, or NO_SQUARE
      */
-    private void markAsMoved (Position position) {
-
-        Piece piece = board.get(position);
-
-        if (piece instanceof Rook) {
-            piece.markAsMoved();
-        } else if (piece instanceof King) {
-            piece.markAsMoved();
+    private void setEnPassant (int square) {
+        if (enPassant != NO_SQUARE) {
+            board.updateHash(Zobrist.EN_PASSANT[enPassant & 7]);
         }
+        if (square != NO_SQUARE) {
+            board.updateHash(Zobrist.EN_PASSANT[square & 7]);
+        }
+        enPassant = square;
     }
 
     /**
-     * Checks to see if a piece is on the top row.
-     * @param position  the position of the piece
-     * @return          true if it is on the top row
+     * Get the position that would result in an en passant if a Pawn moved there.
+     * @return          the position of the en passant
      */
-    private boolean isOnTopRow (Position position) {
-        return position.getY() == 0;
+    Position getEnPassant () {
+        return (enPassant == NO_SQUARE) ? null : Position.fromSquare(enPassant);
     }
 
     /**
-     * Checks to see if a piece is on the bottom row.
-     * @param position  the position of the piece
-     * @return          true if it is on the bottom row
+     * Get the castling rights that are still available.
+     * @return          the castling rights bits
      */
-    private boolean isOnBottomRow (Position position) {
-        return position.getY() == 7;
+    int getCastlingRights () {
+        return castlingRights;
     }
 
     /**
-     * Set the position that would result in an en passant if a Pawn moved there.
-     * @param enPassant  the position of the en passant
+     * Re-read the castling rights from the Kings and Rooks on their starting
+     * squares and toggle the rights that changed in the hash.
      */
-    void setEnPassant (Position enPassant) {
-        this.enPassant = enPassant;
+    void updateCastlingRights () {
+        int rights = 0;
+
+        if (isUnmoved(Team.WHITE, PieceType.KING, 60)) {
+            if (isUnmoved(Team.WHITE, PieceType.ROOK, 63)) rights |= WHITE_KING_SIDE;
+            if (isUnmoved(Team.WHITE, PieceType.ROOK, 56)) rights |= WHITE_QUEEN_SIDE;
+        }
+        if (isUnmoved(Team.BLACK, PieceType.KING, 4)) {
+            if (isUnmoved(Team.BLACK, PieceType.ROOK, 7)) rights |= BLACK_KING_SIDE;
+            if (isUnmoved(Team.BLACK, PieceType.ROOK, 0)) rights |= BLACK_QUEEN_SIDE;
+        }
+
+        board.updateHash(Zobrist.CASTLING[castlingRights] ^ Zobrist.CASTLING[rights]);
+        castlingRights = rights;
     }
 
     /**
-     * Get the position that would result in an en passant if a Pawn moved there.
-     * @return          the position of the en passant
+     * Check to see if a particular square holds a piece that has not moved yet.
+     * @param team      the team of the piece
+     * @param type      the type of the piece
+     * @param square    the index of the square
+     * @return          true if such a piece is there and has never moved
      */
-    Position getEnPassant () {
-        return enPassant;
+    private boolean isUnmoved (Team team, PieceType type, int square) {
+        Piece piece = board.get(square);
+        return piece != null
+                && piece.getTeam() == team
+                && piece.getType() == type
+                && !piece.hasMoved();
     }
 
     @Override
     public String toString () {
         StringBuilder sb = new StringBuilder();
-        for (Move move : moves) {
+        for (int i = 0; i < count; i++) {
             sb.append("\n");
-            sb.append(move);
+            sb.append(Move.toString(moves[i]));
         }
         return new String(sb);
     }
@@ -0,0 +1,204 @@
+package Chess;
+
+import Chess.Pieces.PieceType;
+
+/**
+ * The values of the pieces and the bonus (or penalty) each type of piece
+ * gets for standing on a particular square. They belong to the evaluation,
+ * but they live next to the Board so that it can keep their sums up to
+ * date as pieces are added and removed, instead of the evaluation adding
+ * them up again for every position it scores.
+ * <br />
+ * The King, the Pawns and the Knights have one table for the middle game and
+ * one for the end game, where they play differently: the King comes out
+ * to the centre, the Pawns are worth more the closer they are to being
+ * promoted, and the Knights lose the most on the edge. The Bishops, Rooks
+ * and Queens have a single table that is used in both, since their best
+ * squares hardly change. Every type of piece has an entry in both sets of
+ * tables, so that the evaluation can blend them by the game phase without
+ * treating any piece as a special case.
+ */
+public final class PieceSquareTables {
+
+    public static final int PAWN_VALUE     =    100;
+    public static final int KNIGHT_VALUE   =    320;
+    public static final int BISHOP_VALUE   =    330;
+    public static final int ROOK_VALUE     =    500;
+    public static final int QUEEN_VALUE    =    900;
+    public static final int KING_VALUE     = 20_000;
+
+    /**
+     * How much each type of piece counts towards the game phase. The phase
+     * starts at MAX_PHASE with every piece on the board and goes down to 0
+     * as the Knights, Bishops, Rooks and Queens are traded off.
+     */
+    private static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * The tables are written from White's side of the board: the first row
+     * is the one White's Pawns promote on.
+     */
+    private static final int[][] PawnTable = new int[][] {
+        {  0,  0,  0,  0,  0,  0,  0,  0 },
+        { 50, 50, 50, 50, 50, 50, 50, 50 },
+        { 10, 10, 20, 30, 30, 20, 10, 10 },
+        {  5,  5, 10, 25, 25, 10,  5,  5 },
+        {  0,  0,  0, 20, 20,  0,  0,  0 },
+        {  5, -5,-10,  0,  0,-10, -5,  5 },
+        {  5, 10, 10,-20,-20, 10, 10,  5 },
+        {  0,  0,  0,  0,  0,  0,  0,  0 }
+    };
+
+    private static final int[][] PawnTableEndGame = new int[][] {
+        {  0,  0,  0,  0,  0,  0,  0,  0 },
+        { 60, 60, 60, 60, 60, 60, 60, 60 },
+        { 40, 40, 40, 40, 40, 40, 40, 40 },
+        { 25, 25, 25, 25, 25, 25, 25, 25 },
+        { 15, 15, 15, 15, 15, 15, 15, 15 },
+        {  5,  5,  5,  5,  5,  5,  5,  5 },
+        {  0,  0,  0,  0,  0,  0,  0,  0 },
+        {  0,  0,  0,  0,  0,  0,  0,  0 }
+    };
+
+    private static final int[][] KnightTable = new int[][] {
+        { -50,-40,-30,-30,-30,-30,-40,-50 },
+        { -40,-20,  0,  0,  0,  0,-20,-40 },
+        { -30,  0, 10, 15, 15, 10,  0,-30 },
+        { -30,  5, 15, 20, 20, 15,  5,-30 },
+        { -30,  0, 15, 20, 20, 15,  0,-30 },
+        { -30,  5, 10, 15, 15, 10,  5,-30 },
+        { -40,-20,  0,  5,  5,  0,-20,-40 },
+        { -50,-40,-30,-30,-30,-30,-40,-50 }
+    };
+
+    private static final int[][] KnightTableEndGame = new int[][] {
+        { -50,-40,-30,-30,-30,-30,-40,-50 },
+        { -40,-20,-10, -5, -5,-10,-20,-40 },
+        { -30,-10,  5, 10, 10,  5,-10,-30 },
+        { -30, -5, 10, 15, 15, 10, -5,-30 },
+        { -30, -5, 10, 15, 15, 10, -5,-30 },
+        { -30,-10,  5, 10, 10,  5,-10,-30 },
+        { -40,-20,-10, -5, -5,-10,-20,-40 },
+        { -50,-40,-30,-30,-30,-30,-40,-50 }
+    };
+
+    private static final int[][] BishopTable = new int[][] {
+        { -20,-10,-10,-10,-10,-10,-10,-20 },
+        { -10,  0,  0,  0,  0,  0,  0,-10 },
+        { -10,  0,  5, 10, 10,  5,  0,-10 },
+        { -10,  5,  5, 10, 10,  5,  5,-10 },
+        { -10,  0, 10, 10, 10, 10,  0,-10 },
+        { -10, 10, 10, 10, 10, 10, 10,-10 },
+        { -10,  5,  0,  0,  0,  0,  5,-10 },
+        { -20,-10,-10,-10,-10,-10,-10,-20 }
+    };
+
+    private static final int[][] RookTable = new int[][] {
+        {  0,  0,  0,  0,  0,  0,  0,  0 },
+        {  5, 10, 10, 10, 10, 10, 10,  5 },
+        { -5,  0,  0,  0,  0,  0,  0, -5 },
+        { -5,  0,  0,  0,  0,  0,  0, -5 },
+        { -5,  0,  0,  0,  0,  0,  0, -5 },
+        { -5,  0,  0,  0,  0,  0,  0, -5 },
+        { -5,  0,  0,  0,  0,  0,  0, -5 },
+        {  0,  0,  0,  5,  5,  0,  0,  0 }
+    };
+
+    private static final int[][] QueenTable = new int[][] {
+        { -20,-10,-10, -5, -5,-10,-10,-20 },
+        { -10,  0,  0,  0,  0,  0,  0,-10 },
+        { -10,  0,  5,  5,  5,  5,  0,-10 },
+        {  -5,  0,  5,  5,  5,  5,  0, -5 },
+        {   0,  0,  5,  5,  5,  5,  0, -5 },
+        { -10,  5,  5,  5,  5,  5,  0,-10 },
+        { -10,  0,  5,  0,  0,  0,  0,-10 },
+        { -20,-10,-10, -5, -5,-10,-10,-20 }
+    };
+
+    private static final int[][] KingTableMiddleGame = new int[][] {
+        { -30,-40,-40,-50,-50,-40,-40,-30 },
+        { -30,-40,-40,-50,-50,-40,-40,-30 },
+        { -30,-40,-40,-50,-50,-40,-40,-30 },
+        { -30,-40,-40,-50,-50,-40,-40,-30 },
+        { -20,-30,-30,-40,-40,-30,-30,-20 },
+        { -10,-20,-20,-20,-20,-20,-20,-10 },
+        {  20, 20,  0,  0,  0,  0, 20, 20 },
+        {  20, 30, 10,  0,  0, 10, 30, 20 }
+    };
+
+    private static final int[][] KingTableEndGame = new int[][] {
+        { -50,-40,-30,-20,-20,-30,-40,-50 },
+        { -30,-20,-10,  0,  0,-10,-20,-30 },
+        { -30,-10, 20, 30, 30, 20,-10,-30 },
+        { -30,-10, 30, 40, 40, 30,-10,-30 },
+        { -30,-10, 30, 40, 40, 30,-10,-30 },
+        { -30,-10, 20, 30, 30, 20,-10,-30 },
+        { -30,-30,  0,  0,  0,  0,-30,-30 },
+        { -50,-30,-30,-30,-30,-30,-30,-50 }
+    };
+
+    /**
+     * The tables of the middle game and of the end game, indexed like the
+     * bitboards of the Board and then by square, with Black's side flipped.
+     * A piece with a single table has the same array in both.
+     */
+    static final int[][] MIDDLE_GAME = new int[12][];
+    static final int[][] END_GAME = new int[12][];
+
+    static {
+        int[][][] middleGame = { PawnTable, KnightTable, BishopTable, RookTable, QueenTable, KingTableMiddleGame };
+        int[][][] endGame = { PawnTableEndGame, KnightTableEndGame, null, null, null, KingTableEndGame };
+
+        for (Team team : Team.values()) {
+            for (PieceType type : PieceType.TYPES) {
+                int index = Board.index(team, type);
+                int[][] endGameTable = endGame[type.ordinal()];
+
+                MIDDLE_GAME[index] = new int[64];
+                END_GAME[index] = (endGameTable == null) ? MIDDLE_GAME[index] : new int[64];
+
+                for (int square = 0; square < 64; square++) {
+                    int x = square & 7;
+                    int y = (team == Team.WHITE) ? (square >> 3) : 7 - (square >> 3);
+                    MIDDLE_GAME[index][square] = middleGame[type.ordinal()][y][x];
+
+                    if (endGameTable != null) {
+                        END_GAME[index][square] = endGameTable[y][x];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the intrinsic value of a type of piece.
+     * @param type      the type of piece to evaluate
+     * @return          the score of the piece
+     */
+    public static int valueOf (PieceType type) {
+        switch (type) {
+            case PAWN:      return PAWN_VALUE;
+            case KNIGHT:    return KNIGHT_VALUE;
+            case BISHOP:    return BISHOP_VALUE;
+            case ROOK:      return ROOK_VALUE;
+            case QUEEN:     return QUEEN_VALUE;
+            default:        return KING_VALUE;
+        }
+    }
+
+    /**
+     * Get how much a type of piece counts towards the game phase.
+     * @param type      the type of piece
+     * @return          the weight of the piece
+     */
+    static int phaseOf (PieceType type) {
+        return PHASE_WEIGHTS[type.ordinal()];
+    }
+
+    /**
+     * PieceSquareTables cannot be instantiated.
+     */
+    private PieceSquareTables () {}
+
+}
@@ -0,0 +1,307 @@
+package Chess.Pieces;
+
+import Chess.Team;
+
+/**
+ * Precomputed attack tables for all the pieces.
+ * <br />
+ * Knights, Kings and Pawns attack the same squares from a given square no
+ * matter what else is on the board, so their attacks are simply looked up.
+ * The attacks of Bishops, Rooks and Queens depend on which squares block
+ * them. For those, magic bitboards are used: the blockers that matter for a
+ * square (its rays, without the edge of the board) are multiplied by a
+ * magic number which packs them into a small index, and that index selects
+ * the attack bitboard that was computed for those blockers when the class
+ * was loaded. The magic numbers were found by trial and error so that no two
+ * sets of blockers with different attacks share an index.
+ * <br />
+ * Squares are numbered as in {@link Chess.Position#toSquare()}.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    /**
+     * The squares strictly between two squares on the same row, column or
+     * diagonal, indexed by both squares.
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    private static final long[] ROOK_MAGICS = {
+        0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+        0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+        0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+        0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+        0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+        0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+        0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+        0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+        0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+        0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+        0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+        0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+        0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+        0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+        0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+        0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L,
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+        0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+        0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+        0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+        0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+        0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+        0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+        0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+        0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+        0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+        0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+        0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+        0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+        0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+        0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+        0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L,
+    };
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = step(square, -1, -2) | step(square, 1, -2)
+                    | step(square, -1, 2) | step(square, 1, 2)
+                    | step(square, -2, 1) | step(square, -2, -1)
+                    | step(square, 2, 1) | step(square, 2, -1);
+
+            KING[square] = step(square, 0, -1) | step(square, 0, 1)
+                    | step(square, 1, 0) | step(square, -1, 0)
+                    | step(square, -1, -1) | step(square, 1, -1)
+                    | step(square, -1, 1) | step(square, 1, 1);
+
+            PAWN[Team.WHITE.ordinal()][square] = step(square, -1, -1) | step(square, 1, -1);
+            PAWN[Team.BLACK.ordinal()][square] = step(square, -1, 1) | step(square, 1, 1);
+
+            loadBetween(square);
+
+            ROOK_MASKS[square] = slowRookAttacks(square, 0) & ~edges(square);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            ROOK_ATTACKS[square] = loadSlidingAttacks(square, ROOK_MASKS[square],
+                    ROOK_MAGICS[square], ROOK_SHIFTS[square], true);
+
+            BISHOP_MASKS[square] = slowBishopAttacks(square, 0) & ~edges(square);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            BISHOP_ATTACKS[square] = loadSlidingAttacks(square, BISHOP_MASKS[square],
+                    BISHOP_MAGICS[square], BISHOP_SHIFTS[square], false);
+        }
+    }
+
+    /**
+     * Attacks cannot be instantiated.
+     */
+    private Attacks () {}
+
+    /**
+     * Get the squares that a Knight attacks from a particular square.
+     * @param square    the square of the Knight
+     * @return          a bitboard of the attacked squares
+     */
+    public static long knight (int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Get the immediate surrounding squares of a King.
+     * @param square    the square of the King
+     * @return          a bitboard of the attacked squares
+     */
+    public static long king (int square) {
+        return KING[square];
+    }
+
+    /**
+     * Get the squares that a Pawn attacks from a particular square.
+     * @param team      the team of the Pawn, which decides the direction it faces
+     * @param square    the square of the Pawn
+     * @return          a bitboard of the squares diagonally in front of the Pawn
+     */
+    public static long pawn (Team team, int square) {
+        return PAWN[team.ordinal()][square];
+    }
+
+    /**
+     * Get the squares that a Rook attacks from a particular square. Each of
+     * the four directions stops at the first piece in the way.
+     * @param square    the square of the Rook
+     * @param occupied  a bitboard of the occupied squares
+     * @return          a bitboard of the attacked squares
+     */
+    public static long rook (int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    /**
+     * Get the squares that a Bishop attacks from a particular square. Each
+     * of the four diagonals stops at the first piece in the way.
+     * @param square    the square of the Bishop
+     * @param occupied  a bitboard of the occupied squares
+     * @return          a bitboard of the attacked squares
+     */
+    public static long bishop (int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    /**
+     * Get the squares that a Queen attacks from a particular square.
+     * @param square    the square of the Queen
+     * @param occupied  a bitboard of the occupied squares
+     * @return          a bitboard of the attacked squares
+     */
+    public static long queen (int square, long occupied) {
+        // Queen has same moves as Bishop and Rook together.
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Get the squares strictly between two squares on the same row, column
+     * or diagonal.
+     * @param from      the first square
+     * @param to        the second square
+     * @return          a bitboard of the squares between, or 0 if they are not on a line
+     */
+    public static long between (int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Load the squares between a square and every square on its lines.
+     * @param from      the square to start from
+     */
+    private static void loadBetween (int from) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) {
+                    continue;
+                }
+
+                long squares = 0;
+                int x = (from & 7) + dx;
+                int y = (from >>> 3) + dy;
+
+                while (x >= 0 && x <= 7 && y >= 0 && y <= 7) {
+                    BETWEEN[from][y * 8 + x] = squares;
+                    squares |= 1L << (y * 8 + x);
+                    x += dx;
+                    y += dy;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the attacks of a sliding piece for every set of blockers on its
+     * rays and store each one at the index its magic number gives it.
+     * @param square    the square of the piece
+     * @param mask      the squares whose blockers matter
+     * @param magic     the magic number of the square
+     * @param shift     how far the product is shifted to get the index
+     * @param rook      true for a Rook, false for a Bishop
+     * @return          the attacks of the square, indexed by magic index
+     */
+    private static long[] loadSlidingAttacks (int square, long mask, long magic, int shift, boolean rook) {
+        long[] attacks = new long[1 << (64 - shift)];
+        long blockers = 0;
+
+        // Visit every subset of the mask, starting and ending with the empty set.
+        do {
+            int index = (int) ((blockers * magic) >>> shift);
+            attacks[index] = rook ? slowRookAttacks(square, blockers) : slowBishopAttacks(square, blockers);
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+
+        return attacks;
+    }
+
+    /**
+     * Get the edges of the board that do not contain a particular square.
+     * A blocker on the edge does not change the attacks, since the ray ends
+     * there anyway.
+     * @param square    the square
+     * @return          a bitboard of the edges
+     */
+    private static long edges (int square) {
+        long top = 0xFFL, bottom = 0xFFL << 56;
+        long left = 0x0101010101010101L, right = left << 7;
+        int x = square & 7, y = square >>> 3;
+
+        return ((y == 0) ? 0 : top) | ((y == 7) ? 0 : bottom)
+                | ((x == 0) ? 0 : left) | ((x == 7) ? 0 : right);
+    }
+
+    private static long slowRookAttacks (int square, long occupied) {
+        return ray(square, occupied, 0, -1) | ray(square, occupied, 0, 1)
+                | ray(square, occupied, -1, 0) | ray(square, occupied, 1, 0);
+    }
+
+    private static long slowBishopAttacks (int square, long occupied) {
+        return ray(square, occupied, -1, -1) | ray(square, occupied, 1, -1)
+                | ray(square, occupied, -1, 1) | ray(square, occupied, 1, 1);
+    }
+
+    /**
+     * Get the square a single step away from a square.
+     * @param square    the starting square
+     * @param dx        the step along the x axis
+     * @param dy        the step along the y axis
+     * @return          a bitboard of the square, or 0 if it is off the board
+     */
+    private static long step (int square, int dx, int dy) {
+        int x = (square & 7) + dx;
+        int y = (square >>> 3) + dy;
+
+        if (x < 0 || x > 7 || y < 0 || y > 7) {
+            return 0;
+        }
+
+        return 1L << (y * 8 + x);
+    }
+
+    /**
+     * Get the squares along a ray from a square up to and including the
+     * first occupied square.
+     * @param square    the starting square (not included)
+     * @param occupied  a bitboard of the occupied squares
+     * @param dx        the step along the x axis
+     * @param dy        the step along the y axis
+     * @return          a bitboard of the squares on the ray
+     */
+    private static long ray (int square, long occupied, int dx, int dy) {
+        long squares = 0;
+        int x = (square & 7) + dx;
+        int y = (square >>> 3) + dy;
+
+        while (x >= 0 && x <= 7 && y >= 0 && y <= 7) {
+            long bit = 1L << (y * 8 + x);
+            squares |= bit;
+
+            if ((occupied & bit) != 0) {
+                break;
+            }
+
+            x += dx;
+            y += dy;
+        }
+
+        return squares;
+    }
+
+}
@@ -1,11 +1,8 @@
 package Chess.Pieces;
 
 import Chess.Board;
-import Chess.Position;
 import Chess.Team;
 
-import java.util.HashSet;
-
 /**
  * A representation of a Bishop piece. Contains the logic of where the piece can move to.
  */
@@ -21,69 +18,13 @@ public class Bishop extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAllPossibleMoves(Position position) {
-        HashSet<Position> hashSet = new HashSet<>();
-        loadNorthWest(hashSet, position);
-        loadNorthEast(hashSet, position);
-        loadSouthWest(hashSet, position);
-        loadSouthEast(hashSet, position);
-        return hashSet;
-    }
-
-    /**
-     * Loads all the positions that the Bishop can move to along the North-West diagonal.
-     * @param hashSet   the add that the positions are loaded to
-     * @param position  the position of the Bishop
-     */
-    private void loadNorthWest (HashSet<Position> hashSet, Position position) {
-        for (int i = 1; i < 8; i++) {
-            Position destination = new Position(position.getX()-i, position.getY()-i);
-            if (blocked(hashSet, position, destination)) {
-                return;
-            }
-        }
-    }
-
-    /**
-     * Loads all the positions that the Bishop can move to along the North-East diagonal.
-     * @param hashSet   the add that the positions are loaded to
-     * @param position  the position of the Bishop
-     */
-    private void loadNorthEast (HashSet<Position> hashSet, Position position) {
-        for (int i = 1; i < 8; i++) {
-            Position destination = new Position(position.getX()+i, position.getY()-i);
-            if (blocked(hashSet, position, destination)) {
-                return;
-            }
-        }
-    }
-
-    /**
-     * Loads all the positions that the Bishop can move to along the South-West diagonal.
-     * @param hashSet   the add that the positions are loaded to
-     * @param position  the position of the Bishop
-     */
-    private void loadSouthWest (HashSet<Position> hashSet, Position position) {
-        for (int i = 1; i < 8; i++) {
-            Position destination = new Position(position.getX()-i, position.getY()+i);
-            if (blocked(hashSet, position, destination)) {
-                return;
-            }
-        }
+    public long getPseudoLegalMoves (int square) {
+        return Attacks.bishop(square, board.getOccupancy()) & notOwnPieces();
     }
 
-    /**
-     * Loads all the positions that that Bishop can move to along the South-East diagonal.
-     * @param hashSet   the add that the positions are loaded to
-     * @param position  the position of the Bishop
-     */
-    private void loadSouthEast (HashSet<Position> hashSet, Position position) {
-        for (int i = 1; i < 8; i++) {
-            Position destination = new Position(position.getX()+i, position.getY()+i);
-            if (blocked(hashSet, position, destination)) {
-                return;
-            }
-        }
+    @Override
+    public PieceType getType () {
+        return PieceType.BISHOP;
     }
 
     /**
@@ -1,11 +1,8 @@
 package Chess.Pieces;
 
 import Chess.Board;
-import Chess.Position;
 import Chess.Team;
 
-import java.util.HashSet;
-
 /**
  * A representation of a Knight piece. Contains the logic of where the piece can move to.
  */
@@ -21,81 +18,13 @@ public class Knight extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAllPossibleMoves(Position position) {
-        HashSet<Position> hashSet = new HashSet<>();
-        loadNorthMoves(hashSet, position);
-        loadSouthMoves(hashSet, position);
-        loadWestMoves(hashSet, position);
-        loadEastMoves(hashSet, position);
-        return hashSet;
-    }
-
-    /**
-     * Loads the moves above the Knight.
-     * @param hashSet       the add to load to
-     * @param position      the position of the Knight
-     */
-    private void loadNorthMoves (HashSet<Position> hashSet, Position position) {
-        Position moveUpLeft     = new Position(position.getX()-1, position.getY()-2);
-        Position moveUpRight    = new Position(position.getX()+1, position.getY()-2);
-
-        if (isValidSpot(this, moveUpLeft)) {
-            add(hashSet, position, moveUpLeft);
-        }
-        if (isValidSpot(this, moveUpRight)) {
-            add(hashSet, position, moveUpRight);
-        }
-    }
-
-    /**
-     * Loads the moves under the Knight.
-     * @param hashSet       the add to load to
-     * @param position      the position of the Knight
-     */
-    private void loadSouthMoves (HashSet<Position> hashSet, Position position) {
-        Position moveDownLeft   = new Position(position.getX()-1, position.getY()+2);
-        Position moveDownRight  = new Position(position.getX()+1, position.getY()+2);
-
-        if (isValidSpot(this, moveDownLeft)) {
-            add(hashSet, position, moveDownLeft);
-        }
-        if (isValidSpot(this, moveDownRight)) {
-            add(hashSet, position, moveDownRight);
-        }
-    }
-
-    /**
-     * Loads the moves to the left of the Knight.
-     * @param hashSet       the add to load to
-     * @param position      the position of the Knight
-     */
-    private void loadWestMoves (HashSet<Position> hashSet, Position position) {
-        Position moveLeftDown   = new Position(position.getX()-2, position.getY()+1);
-        Position moveLeftUp     = new Position(position.getX()-2, position.getY()-1);
-
-        if (isValidSpot(this, moveLeftDown)) {
-            add(hashSet, position, moveLeftDown);
-        }
-        if (isValidSpot(this, moveLeftUp)) {
-            add(hashSet, position, moveLeftUp);
-        }
+    public long getPseudoLegalMoves (int square) {
+        return Attacks.knight(square) & notOwnPieces();
     }
 
-    /**
-     * Loads the moves to the right of the Knight.
-     * @param hashSet       the add to load to
-     * @param position      the position of the Knight
-     */
-    private void loadEastMoves (HashSet<Position> hashSet, Position position) {
-        Position moveRightDown  = new Position(position.getX()+2, position.getY()+1);
-        Position moveRightUp    = new Position(position.getX()+2, position.getY()-1);
-
-        if (isValidSpot(this, moveRightDown)) {
-            add(hashSet, position, moveRightDown);
-        }
-        if (isValidSpot(this, moveRightUp)) {
-            add(hashSet, position, moveRightUp);
-        }
+    @Override
+    public PieceType getType () {
+        return PieceType.KNIGHT;
     }
 
     /**
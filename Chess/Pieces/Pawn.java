@@ -4,8 +4,6 @@ import Chess.Board;
 import Chess.Position;
 import Chess.Team;
 
-import java.util.HashSet;
-
 /**
  * A representation of a Pawn piece. Contains the logic of where the piece can move to.
  */
@@ -25,111 +23,38 @@ public class Pawn extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAllPossibleMoves(Position position) {
-
-        HashSet<Position> hashSet = new HashSet<>();
-
-        if (directionNorth) {
-            movingNorth(hashSet, position);
-        } else {
-            movingSouth(hashSet, position);
-        }
-
-        return hashSet;
-    }
-
-    /**
-     * Loads the possible positions the Pawn can move to if it is facing North.
-     * @param hashSet           the add that the positions are loaded to
-     * @param position          the starting position
-     */
-    private void movingNorth (HashSet<Position> hashSet, Position position) {
-
-        Position oneNorth   = new Position(position.getX(), position.getY()-1);
-        Position twoNorth   = new Position(position.getX(), position.getY()-2);
-        Position eatLeft    = new Position(position.getX()-1, position.getY()-1);
-        Position eatRight   = new Position(position.getX()+1, position.getY()-1);
-
-        boolean secondRow = position.getY() == 6;
-
-        moveForward(hashSet, position, oneNorth);
-
-        if (secondRow) {
-            moveForward(hashSet, position, twoNorth);
-        }
-
-        eat(hashSet, position, eatLeft);
-        eat(hashSet, position, eatRight);
-    }
-
-    /**
-     * Loads the possible positions the Pawn can move to if it is facing South.
-     * @param hashSet           the add that the positions are loaded to
-     * @param position          the starting position
-     */
-    private void movingSouth (HashSet<Position> hashSet, Position position) {
-
-        Position oneSouth   = new Position(position.getX(), position.getY()+1);
-        Position twoSouth   = new Position(position.getX(), position.getY()+2);
-        Position eatLeft    = new Position(position.getX()-1, position.getY()+1);
-        Position eatRight   = new Position(position.getX()+1, position.getY()+1);
-
-        boolean seventhRow = position.getY() == 1;
-
-        moveForward(hashSet, position, oneSouth);
-
-        if (seventhRow) {
-            moveForward(hashSet, position, twoSouth);
-        }
-
-        eat(hashSet, position, eatLeft);
-        eat(hashSet, position, eatRight);
-    }
-
-    /**
-     * Loads positions to the add after checking if they are valid.
-     * @param hashSet           the add that the positions are loaded to
-     * @param position          the position of the Pawn
-     * @param destination       the position that is being validated
-     */
-    private void moveForward (HashSet<Position> hashSet, Position position, Position destination) {
-
-        if (!isInBounds(destination)) return;
-
-        // Pawn cannot jump over a piece when moving forward two squares.
-        if (Math.abs(position.getY() - destination.getY()) > 1) {
-
-            int middle = (position.getY() + destination.getY()) / 2;
-            Position pos = new Position(position.getX(), middle);
-
-            if (!isEmptySpot(pos)) {
-                return;
+    public long getPseudoLegalMoves (int square) {
+        int forward = directionNorth ? -8 : 8;
+        int oneForward = square + forward;
+        boolean secondRow = (square >>> 3) == (directionNorth ? 6 : 1);
+        long empty = ~board.getOccupancy();
+        long moves = 0;
+
+        if (oneForward >= 0 && oneForward < 64) {
+            moves = (1L << oneForward) & empty;
+
+            // Pawn cannot jump over a piece when moving forward two squares.
+            if (secondRow && moves != 0) {
+                moves |= (1L << (oneForward + forward)) & empty;
             }
         }
 
-        if (isEmptySpot(destination)) {
-            add(hashSet, position, destination);
-        }
+        return moves | (Attacks.pawn(getTeam(), square) & (board.getOccupancy(getTeam().getOpponent()) | enPassant()));
     }
 
     /**
-     * Checks to see if it is possible for the Pawn to eat.
-     * Then loads those positions.
-     * @param hashSet       the add that the positions are loaded to
-     * @param position      the position of the Knight
-     * @param destination   the position that is being validated
+     * Get the square that the Pawn could eat on by en passant.
+     * @return          a bitboard of the en passant square, or 0 if there is none
      */
-    private void eat (HashSet<Position> hashSet, Position position, Position destination) {
-
-        if (Board.isInBounds(destination)
-                && !isEmptySpot(destination)
-                && !isSameTeam(destination)) {
-            add(hashSet, position, destination);
-        } else if (Board.isInBounds(destination)
-                && destination.equals(board.getEnPassant())) {
-            add(hashSet, position, destination);
+    private long enPassant () {
+        Position enPassant = board.getEnPassant();
+
+        // Only the Pawns of the team that did not just move two squares can eat it.
+        if (enPassant == null || enPassant.getY() != (directionNorth ? 2 : 5)) {
+            return 0;
         }
 
+        return 1L << enPassant.toSquare();
     }
 
     /**
@@ -140,6 +65,11 @@ public class Pawn extends Piece {
         return directionNorth;
     }
 
+    @Override
+    public PieceType getType () {
+        return PieceType.PAWN;
+    }
+
     /**
      * Create a new identical object.
      * @param board     the new game board for the piece to be on
@@ -17,14 +17,6 @@ public abstract class Piece {
     private Team team;
     boolean moved = false;
 
-    /**
-     * If this flag is set to true, then moves are filtered so that no move
-     * that results in a check on the player's own King is possible. Moves
-     * by pieces from the idle player should not be filtered as this would
-     * result in an endless loop.
-     */
-    public static boolean filterAgainstCheck = true;
-
     /**
      * Construct Piece.
      * @param board     the game board that the piece was placed on
@@ -36,123 +28,82 @@ public abstract class Piece {
     }
 
     /**
-     * Get all the possible positions that a piece can move to.
+     * Get all the possible positions that a piece can move to. For the team
+     * who's turn it is, moves that would leave its own King in check are
+     * not included.
      * @param position      the position of the piece on the board
      * @return              all the positions that the piece can move to
      */
-    public abstract HashSet<Position> getAllPossibleMoves (Position position);
-
-    /**
-     * Create a new identical Piece object.
-     * @param board     the new game board for the piece to be on
-     * @return              a new identical piece
-     */
-    public abstract Piece clone (Board board);
+    public HashSet<Position> getAllPossibleMoves (Position position) {
+        return getAllPossibleMoves(position, true);
+    }
 
     /**
-     * Helper method to filter a potential move by making sure that it is
-     * not added if the result would lead to a check on the Player's own King.
-     * <br/>
-     * This method is quintessential because a check should only be
-     * search for, for the Player who's turn it is. Without this filter
-     * there is a chance of an infinite loop and stack overflow.
-     * @param hashSet       the add that the potential moves are loaded to
-     * @param position      the location of the piece
-     * @param destination   the position that is being validated
-     */
-    void add (HashSet<Position> hashSet, Position position, Position destination) {
+     * Get all the possible positions that a piece can move to.
+     * <br />
+     * The filter is chosen on each call rather than kept in shared state,
+     * so pieces on different boards can be asked for their moves at the
+     * same time. Only the pieces of the team who's turn it is can be
+     * filtered; the moves of the other team are never filtered.
+     * @param position              the position of the piece on the board
+     * @param filterAgainstCheck    true to leave out the moves that would
+     *                              put the piece's own King in check
+     * @return                      all the positions that the piece can move to
+     */
+    public HashSet<Position> getAllPossibleMoves (Position position, boolean filterAgainstCheck) {
+        long moves;
 
         if (filterAgainstCheck && board.getTurn() == getTeam()) {
-            if (!board.wouldBeCheck(position, destination)) {
-                hashSet.add(destination);
-            }
+            moves = board.getLegalMoves(position.toSquare());
         } else {
-            hashSet.add(destination);
+            moves = getPseudoLegalMoves(position.toSquare());
         }
-    }
 
-    /**
-     * Add positions that are valid and check for obstacles. This prevents a
-     * piece from jumping over another piece if it is not allowed to
-     * (Knight is allowed to do this).
-     * @param hashSet       the add that the positions are loaded to
-     * @param position      the location of the piece
-     * @param destination   the position that is being validated
-     * @return              true if there is an obstacle
-     */
-    boolean blocked (HashSet<Position> hashSet, Position position, Position destination) {
-        if (!isInBounds(destination)) {
-            return true;
-        } else if (isEmptySpot(destination)) {
-            add(hashSet, position, destination);
-            return false;
-        } else if (isSameTeam(destination)) {
-            return true;
-        } else { // Eating an enemy piece.
-            add(hashSet, position, destination);
-            return true;
+        HashSet<Position> hashSet = new HashSet<>();
+        while (moves != 0) {
+            hashSet.add(Position.fromSquare(Long.numberOfTrailingZeros(moves)));
+            moves &= moves - 1;
         }
+        return hashSet;
     }
 
     /**
-     * Check to see which team the Piece is on.
-     * @return          the team (black or white)
+     * Get the squares that the piece can move to without taking into account
+     * whether its own King would be left in check. Castling is not included.
+     * @param square        the square of the piece on the board
+     * @return              a bitboard of the destination squares
      */
-    public Team getTeam () {
-        return team;
-    }
-
-    /**
-     * Check to see if a particular position is not outside the bounds
-     * of the chess board.
-     * @param position  the position that is being checked
-     * @return          true if it is in bounds
-     */
-    boolean isInBounds (Position position) {
-        return Board.isInBounds(position);
-    }
+    public abstract long getPseudoLegalMoves (int square);
 
     /**
-     * Check to see if a particular position is on the board is empty.
-     * @param position  the position that is being checked
-     * @return          true if it is an empty spot
+     * Get the type of the piece (Pawn, Knight, Bishop, Rook, Queen or King).
+     * @return              the type of the piece
      */
-    boolean isEmptySpot (Position position) {
-        return board.isEmptySpot(position);
-    }
+    public abstract PieceType getType ();
 
     /**
-     * Check to see if this piece is on the same team as a piece on
-     * a particular position.
-     * @param position  the position of the other piece
-     * @return          true if both pieces are on the same team
+     * Create a new identical Piece object.
+     * @param board     the new game board for the piece to be on
+     * @return              a new identical piece
      */
-    boolean isSameTeam (Position position) {
-        return board.sameTeam(this, board.get(position));
-    }
+    public abstract Piece clone (Board board);
 
     /**
-     * Check to see if a piece can move to a particular position.
-     * @param piece     the piece that is to be moved
-     * @param position  the position that the piece is to be moved to
-     * @return          true if the position is in bounds, empty or an enemy
+     * Check to see which team the Piece is on.
+     * @return          the team (black or white)
      */
-    boolean isValidSpot (Piece piece, Position position) {
-        return board.isValidSpot(piece, position);
+    public Team getTeam () {
+        return team;
     }
 
     /**
-     * Check to see if a particular position on the board is safe from
-     * enemy pieces at the current moment in time.
-     * @param team      the team that would be safe on the position
-     * @param position  the position to wouldBeCheck for safety
-     * @return          return true if the position is safe
+     * Get the squares that are not occupied by the piece's own team.
+     * @return          a bitboard of the empty squares and the enemy pieces
      */
-    boolean safeSpot (Team team, Position position) {
-        return board.safeSpot(team, position);
+    long notOwnPieces () {
+        return ~board.getOccupancy(team);
     }
 
-
     /**
      * Check to see if the Piece has been moved.
      * Useful for castling.
@@ -171,23 +122,12 @@ public abstract class Piece {
     }
 
     /**
-     * Turn on filter against check. This means that pieces won't include
-     * positions that would result in a check on their own team's King.
-     * This should be on when getting the potential moves of the Player
-     * who's turn it is.
-     */
-    public static void filterAgainstCheckON () {
-        filterAgainstCheck = true;
-    }
-
-    /**
-     * Turn off filter against check. This means that pieces will include
-     * positions that would result in a check on their own team's King.
-     * This should be off when getting the potential moves of the Player
-     * who's turn it is not.
+     * Set whether or not the Piece has been moved. Used when a move is
+     * undone and the Piece goes back to the state it was in before.
+     * @param moved     true if the Piece has been moved
      */
-    public static void filterAgainstCheckOFF () {
-        filterAgainstCheck = false;
+    public void setMoved (boolean moved) {
+        this.moved = moved;
     }
 
     @Override
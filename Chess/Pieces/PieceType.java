@@ -0,0 +1,20 @@
+package Chess.Pieces;
+
+/**
+ * The types of chess pieces. The ordinal of each type is used to index
+ * the bitboards of the game board.
+ */
+public enum PieceType {
+    PAWN,
+    KNIGHT,
+    BISHOP,
+    ROOK,
+    QUEEN,
+    KING;
+
+    /**
+     * All the types in the order of their ordinals. Unlike values(), this
+     * does not make a new array each time it is used.
+     */
+    public static final PieceType[] TYPES = values();
+}
@@ -1,11 +1,8 @@
 package Chess.Pieces;
 
 import Chess.Board;
-import Chess.Position;
 import Chess.Team;
 
-import java.util.HashSet;
-
 /**
  * A representation of a Queen piece. Contains the logic of where the piece can move to.
  */
@@ -21,15 +18,13 @@ public class Queen extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAllPossibleMoves(Position position) {
-
-        HashSet<Position> hashSet = new HashSet<>();
-
-        // Queen has same moves as Bishop and Rook together.
-        hashSet.addAll(new Rook(board, getTeam()).getAllPossibleMoves(position));
-        hashSet.addAll(new Bishop(board, getTeam()).getAllPossibleMoves(position));
+    public long getPseudoLegalMoves (int square) {
+        return Attacks.queen(square, board.getOccupancy()) & notOwnPieces();
+    }
 
-        return hashSet;
+    @Override
+    public PieceType getType () {
+        return PieceType.QUEEN;
     }
 
     /**
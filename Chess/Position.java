@@ -9,6 +9,18 @@ public class Position {
 
     private int x, y;
 
+    /**
+     * Positions are immutable, so one instance per square is shared
+     * wherever a position is derived from a square index.
+     */
+    private static final Position[] SQUARES = new Position[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new Position(square % 8, square / 8);
+        }
+    }
+
     /**
      * Constructs the position.
      * @param x     the x coordinate of the position (or column)
@@ -35,6 +47,25 @@ public class Position {
         return y;
     }
 
+    /**
+     * Gets the index of the square of the position. Squares are numbered
+     * from 0 to 63 row by row, starting at the top left corner of the board.
+     * The index is also the bit of the square in a bitboard.
+     * @return  the index of the square
+     */
+    public int toSquare() {
+        return y * 8 + x;
+    }
+
+    /**
+     * Gets the position of a square index.
+     * @param square    the index of the square (0 to 63)
+     * @return          the position of the square
+     */
+    public static Position fromSquare(int square) {
+        return SQUARES[square];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
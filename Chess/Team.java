@@ -5,5 +5,13 @@ package Chess;
  */
 public enum Team {
     BLACK,
-    WHITE
+    WHITE;
+
+    /**
+     * Get the other team.
+     * @return  the team playing against this one
+     */
+    public Team getOpponent () {
+        return (this == WHITE) ? BLACK : WHITE;
+    }
 }
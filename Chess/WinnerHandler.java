@@ -1,10 +1,6 @@
 package Chess;
 
-import Chess.Pieces.Piece;
-
 import javax.swing.*;
-import java.util.HashMap;
-import java.util.Stack;
 
 /**
  * For handling everything related to winning. This includes detecting
@@ -14,6 +10,11 @@ class WinnerHandler {
 
     private Board board;
 
+    /**
+     * Holds the legal moves while looking for a checkmate or stalemate.
+     */
+    private int[] moves = new int[Board.MAX_MOVES];
+
     /**
      * Construct the WinnerHandler.
      * @param board     a reference to the board where the handling will occur
@@ -23,112 +24,38 @@ class WinnerHandler {
     }
 
     /**
-     * Check to see if a piece can move to a position without getting
-     * a check on it's own team's King.
-     * @param position      the starting position of the piece
-     * @param destination   the position the piece would move to
-     * @return              true if there would be a wouldBeCheck
+     * Check to see if the team who's turn it is has no legal moves left.
+     * @return      true if no piece of the team can move
      */
-    boolean wouldBeCheck (Position position, Position destination) {
-
-        Piece temp = null;
-        Piece piece = board.get(position);
-        boolean result;
-
-        if (!board.isEmptySpot(destination)) {
-            temp = board.get(destination).clone(board);
-        }
-
-        move(piece, position, destination);
-        Team team = piece.getTeam();
-        result = !board.safeSpot(team, board.getKing(team));
-        move(piece, destination, position);
-
-        if (temp != null) {
-            board.add(temp, destination);
-        }
-
-        return result;
+    private boolean noLegalMoves () {
+        return board.generateMoves(moves) == 0;
     }
 
     /**
-     * Check to see if a piece can move to a position without getting checkmated.
-     * @param position      the starting position of the piece
-     * @param destination   the position the piece would move to
-     * @return              true if there would be a checkmate
+     * Check to see if the team who's turn it is, is checkmated.
+     * @return      true if the King is in check and there is no legal move
      */
-    private boolean wouldBeCheckmate (Position position, Position destination) {
-        Piece temp = null;
-        Piece piece = board.get(position);
-        boolean result;
-
-        if (!board.isEmptySpot(destination)) {
-            temp = board.get(destination).clone(board);
-        }
-
-        move(piece, position, destination);
-        result = piece.getAllPossibleMoves(destination).size() == 0;
-        move(piece, destination, position);
-
-        if (temp != null) {
-            board.add(temp, destination);
-        }
-
-        return result;
+    private boolean isCheckmate () {
+        return board.isInCheck() && noLegalMoves();
     }
 
     /**
-     * Move the piece without triggering any reciprocal functions (this is what
-     * would happen if the move(...) method from game board is called).
-     * @param piece         the piece to move
-     * @param position      the position of the piece
-     * @param destination   the destination of the piece
+     * Check to see if the team who's turn it is, is stalemated.
+     * @return      true if the King is not in check and there is no legal move
      */
-    private void move (Piece piece, Position position, Position destination) {
-        board.add(piece, destination);
-        board.delete(position);
+    private boolean isStalemate () {
+        return !board.isInCheck() && noLegalMoves();
     }
 
     /**
-     * Check to see if it is currently a stalemate.
-     * @param team      the team to check for a stalemate on
-     * @return          true if there is a stalemate on the specified team
+     * Check to see if the game is a draw because of the pieces left or
+     * because the position was repeated.
+     * @return      true if the position is a draw
      */
-    private boolean isStalemate (Team team) {
-        for (Position position : board) {
-            if (board.get(position).getTeam() != team) {
-                continue;
-            }
-            for (Position pos : board.get(position).getAllPossibleMoves(position)) {
-                if (!wouldBeCheckmate(position, pos)) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Check to see if there is a checkmate.
-     * @param team  the team to check if there is a checkmate on
-     * @return      return true if there is a checkmate
-     */
-    private boolean isCheckmate(Team team) {
-        for (Position position : board) {
-            if (board.get(position).getTeam().equals(team)) {
-                if (board.get(position).getAllPossibleMoves(position).size() != 0) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
-    }
-
-    private boolean isDraw () {
+    boolean isDraw () {
         boolean onePieceLeft = onePieceLeft();
-        boolean tripleTurn = tripleMove(Team.WHITE) && tripleMove(Team.BLACK);
-        return onePieceLeft || tripleTurn;
+        boolean threefoldRepetition = threefoldRepetition();
+        return onePieceLeft || threefoldRepetition;
     }
 
     /**
@@ -136,59 +63,32 @@ class WinnerHandler {
      * @return      true if only two pieces are left on the board
      */
     private boolean onePieceLeft () {
-        Stack<Position> whitePieces = new Stack<>();
-        for (Position p : board) {
-            if (board.get(p).getTeam().equals(Team.WHITE)) {
-                whitePieces.push(p);
-            }
-        }
-
-        Stack<Position> blackPieces = new Stack<>();
-        for (Position p : board) {
-            if (board.get(p).getTeam().equals(Team.BLACK)) {
-                blackPieces.push(p);
-            }
-        }
-
-        return blackPieces.size() == 1 && whitePieces.size() == 1;
+        return board.getPieceCount(Team.WHITE) == 1
+                && board.getPieceCount(Team.BLACK) == 1;
     }
 
     /**
-     * Check to see if a move was made 3 times.
-     * @return      true if a move was made 3 times
+     * Check to see if the current position occurred 3 times.
+     * Positions are compared by their hashes.
+     * @return      true if the position was reached 3 times
      */
-    private boolean tripleMove (Team team) {
-        HashMap<Move, Integer> hashMap = new HashMap<>();
-        for (Move m : board.movementHandler.moves) {
-            if (m.getPiece1().getTeam() != team) continue;
-            if (!hashMap.containsKey(m)) {
-                hashMap.put(m, 1);
-            }  else {
-                int num = hashMap.get(m);
-                hashMap.put(m, ++num);
-            }
-            if (hashMap.get(m) == 3) {
-                return true;
-            }
-        }
-        return false;
+    private boolean threefoldRepetition () {
+        return board.movementHandler.getRepetitions() >= 2;
     }
 
+    /**
+     * Check to see if the game ended with the last move. Only the team who's
+     * turn it is can be checkmated or stalemated, since the other team
+     * could not have made a move that left its own King in check.
+     * A stalemate is a draw.
+     * @return      true if the game is over
+     */
     boolean checkIfGameIsOver () {
 
-        if (isCheckmate(Team.WHITE)) {
-            board.setWinner(Team.BLACK);
-            return true;
-        } else if (isCheckmate(Team.BLACK)) {
-            board.setWinner(Team.WHITE);
-            return true;
-        } else if (isStalemate(Team.WHITE)) {
-            board.setWinner(Team.BLACK);
-            return true;
-        } else if (isStalemate(Team.BLACK)) {
-            board.setWinner(Team.WHITE);
+        if (isCheckmate()) {
+            board.setWinner(board.getTurn().getOpponent());
             return true;
-        } else if (isDraw()) {
+        } else if (isStalemate() || isDraw()) {
             board.setWinner(null);
             return true;
         }
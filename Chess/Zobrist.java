@@ -0,0 +1,64 @@
+package Chess;
+
+import java.util.Random;
+
+/**
+ * The random keys used to hash a position on the board. The hash of a
+ * position is the XOR of the keys of every piece on its square, the key
+ * of the side to move, the key of the castling rights and the key of
+ * the en passant column.
+ * <br />
+ * Because XOR is its own inverse, a piece is added to or removed from
+ * the hash with the same operation, which lets the hash be updated as
+ * moves are made instead of being recomputed.
+ */
+final class Zobrist {
+
+    /**
+     * One key per piece bitboard and square, indexed like the bitboards of the Board.
+     */
+    static final long[][] PIECES = new long[12][64];
+
+    /**
+     * One key per combination of the four castling rights.
+     */
+    static final long[] CASTLING = new long[16];
+
+    /**
+     * One key per column that an en passant can occur on.
+     */
+    static final long[] EN_PASSANT = new long[8];
+
+    /**
+     * The key that is present in the hash when it is Black's turn.
+     */
+    static final long BLACK_TO_MOVE;
+
+    static {
+        // A fixed seed keeps the hashes identical from one run to the next.
+        Random random = new Random(0x5EED_C0FFEEL);
+
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+
+        // No castling rights hashes to nothing, like an empty board.
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+
+        for (int x = 0; x < EN_PASSANT.length; x++) {
+            EN_PASSANT[x] = random.nextLong();
+        }
+
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    /**
+     * Zobrist cannot be instantiated.
+     */
+    private Zobrist () {}
+
+}